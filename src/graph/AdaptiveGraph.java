@@ -0,0 +1,244 @@
+package graph;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+
+/**
+ * A mutable graph that changes its internal representation as it is used:
+ * <ul>
+ *   <li>an edge list ({@link ConcreteEdgesGraph}) while it has few edges,
+ *   <li>hashed adjacency maps once it grows past {@link #HASHED_EDGE_THRESHOLD} edges,
+ *   <li>immutable compressed rows once reads dominate writes, moving back to
+ *       hashed adjacency on the next mutation.
+ * </ul>
+ * Migrations are invisible to callers except through their cost; the set
+ * returned by {@link #vertices()} is a view that follows them. Each migration
+ * copies the whole graph, so compaction waits for at least as many reads as
+ * the graph has vertices and edges, doubled each time a mutation thawed the
+ * previous compaction before it had served that many reads. Concurrent
+ * calls to observers are safe as long as no mutator runs at the same time,
+ * including a read-triggered compaction.
+ */
+public class AdaptiveGraph<L> implements Graph<L> {
+
+    /** Number of edges above which the edge list is replaced by hashed adjacency. */
+    public static final int HASHED_EDGE_THRESHOLD = 64;
+
+    /** Minimum number of reads since the last migration before compacting to rows. */
+    static final int COMPACT_MIN_READS = 1024;
+
+    /** Largest power of two by which early thaws can multiply the reads needed to compact. */
+    static final int MAX_BACKOFF = 16;
+
+    /** Reads per write since the last migration above which compacting pays off. */
+    static final int COMPACT_READ_RATIO = 16;
+
+    /** Internal representations, exposed for tests. */
+    enum Layout { EDGE_LIST, HASHED, ARRAY }
+
+    private volatile Graph<L> rep;
+    private int edgeCount;
+    private long reads;
+    private long writes;
+    private long compactAfter = COMPACT_MIN_READS;
+    private int backoff;
+
+    // Abstraction function:
+    //   Represents the graph rep.
+    // Representation invariant:
+    //   - rep is a ConcreteEdgesGraph, HashedGraph or ArrayGraph.
+    //   - rep is a ConcreteEdgesGraph only while edgeCount <= HASHED_EDGE_THRESHOLD.
+    //   - edgeCount is the number of edges in rep; reads, writes >= 0.
+    //   - reads and writes count calls since the last migration.
+    //   - compactAfter >= COMPACT_MIN_READS; 0 <= backoff <= MAX_BACKOFF.
+    // Safety from rep exposure:
+    //   rep is private and never returned; observers return what rep returns,
+    //   which is unmodifiable, or for vertices() an unmodifiable view that
+    //   reads rep afresh on every call.
+    // Thread safety argument:
+    //   rep is volatile and only replaced by a fully built graph, so readers
+    //   racing with a read-triggered compaction see either the old or the new
+    //   representation, both complete. reads is a heuristic counter and lost
+    //   updates only delay compaction. compactAfter and backoff are only
+    //   changed by mutators or while holding this graph's lock.
+
+    /**
+     * Create an empty graph.
+     */
+    public AdaptiveGraph() {
+        rep = new ConcreteEdgesGraph<>();
+        checkRep();
+    }
+
+    /**
+     * Create an empty graph whose starting representation is chosen for the
+     * expected final size.
+     *
+     * @param expectedVertices expected number of vertices, non-negative
+     * @param expectedEdges expected number of edges, non-negative
+     */
+    public AdaptiveGraph(int expectedVertices, int expectedEdges) {
+        if (expectedVertices < 0 || expectedEdges < 0) {
+            throw new IllegalArgumentException("Expected sizes cannot be negative");
+        }
+        rep = expectedEdges > HASHED_EDGE_THRESHOLD
+                ? new HashedGraph<>(expectedVertices)
+                : new ConcreteEdgesGraph<>();
+        checkRep();
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        assert rep instanceof ConcreteEdgesGraph || rep instanceof HashedGraph || rep instanceof ArrayGraph
+                : "Unknown representation";
+        assert !(rep instanceof ConcreteEdgesGraph) || edgeCount <= HASHED_EDGE_THRESHOLD
+                : "Edge list should only hold small graphs";
+        assert edgeCount >= 0 : "Edge count should not be negative";
+        assert compactAfter >= COMPACT_MIN_READS : "Compaction should wait for the minimum reads";
+        assert backoff >= 0 && backoff <= MAX_BACKOFF : "Backoff should be bounded";
+    }
+
+    /**
+     * @return the current internal representation
+     */
+    Layout layout() {
+        Graph<L> current = rep;
+        if (current instanceof ConcreteEdgesGraph) return Layout.EDGE_LIST;
+        if (current instanceof HashedGraph) return Layout.HASHED;
+        return Layout.ARRAY;
+    }
+
+    /**
+     * Compact into immutable rows now, without waiting for reads to dominate.
+     * The next mutation moves the graph back to hashed adjacency.
+     */
+    public synchronized void compact() {
+        if (!(rep instanceof ArrayGraph)) {
+            rep = new ArrayGraph<>(rep);
+            reads = 0;
+            writes = 0;
+        }
+        checkRep();
+    }
+
+    // Prepare rep for a mutation
+    private Graph<L> writable() {
+        if (rep instanceof ArrayGraph) {
+            // A compaction thawed before serving as many reads as it cost to
+            // build was not worth it; wait longer before the next one
+            backoff = reads < size() ? Math.min(backoff + 1, MAX_BACKOFF) : 0;
+            rep = new HashedGraph<>(rep);
+            reads = 0;
+            writes = 0;
+        }
+        writes++;
+        return rep;
+    }
+
+    // Count a read, compacting if reads have come to dominate
+    private Graph<L> readable() {
+        Graph<L> current = rep;
+        if (++reads >= compactAfter
+                && current instanceof HashedGraph
+                && reads / COMPACT_READ_RATIO > writes) {
+            synchronized (this) {
+                compactAfter = Math.max(COMPACT_MIN_READS, size()) << backoff;
+                if (rep == current && reads >= compactAfter) compact();
+                current = rep;
+            }
+        }
+        return current;
+    }
+
+    // Number of vertices and edges, which a migration copies
+    private long size() {
+        return (long) rep.vertices().size() + edgeCount;
+    }
+
+    private void grown() {
+        if (edgeCount > HASHED_EDGE_THRESHOLD && rep instanceof ConcreteEdgesGraph) {
+            rep = new HashedGraph<>(rep);
+            reads = 0;
+            writes = 0;
+        }
+        checkRep();
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        return writable().add(vertex);
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Edge weight cannot be negative");
+        int previous = writable().set(source, target, weight);
+        if (previous == 0 && weight > 0) edgeCount++;
+        if (previous > 0 && weight == 0) edgeCount--;
+        grown();
+        return previous;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        Graph<L> current = writable();
+        Map<L, Integer> out = current.targets(vertex);
+        int incident = out.size() + current.sources(vertex).size() - (out.containsKey(vertex) ? 1 : 0);
+        if (!current.remove(vertex)) return false;
+        edgeCount -= incident;
+        checkRep();
+        return true;
+    }
+
+    @Override
+    public Set<L> vertices() {
+        readable();
+        // A view through rep, so it follows migrations rather than going
+        // stale with the representation it was taken from
+        return new AbstractSet<L>() {
+            @Override
+            public int size() {
+                return rep.vertices().size();
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return rep.vertices().contains(o);
+            }
+
+            @Override
+            public Iterator<L> iterator() {
+                return rep.vertices().iterator();
+            }
+        };
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        return readable().sources(target);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        return readable().targets(source);
+    }
+
+    @Override
+    public Spliterator<WeightedEdge<L>> edges() {
+        return readable().edges();
+    }
+
+    @Override
+    public MemoryStats memoryStats() {
+        // Not counted as a read: exporting stats should not trigger compaction
+        return rep.memoryStats();
+    }
+
+    @Override
+    public String toString() {
+        return rep.toString();
+    }
+}
@@ -0,0 +1,325 @@
+package graph;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * An immutable graph stored as compressed sparse rows: one array of neighbor
+ * ids and one of weights per direction, with each row sorted by id. Observers
+ * return views over the arrays and never copy; all mutators throw
+ * UnsupportedOperationException.
+ */
+class ArrayGraph<L> implements Graph<L> {
+
+    private final Object[] labels;
+    private final Map<L, Integer> ids;
+    private final int[] outOffsets;
+    private final int[] outIds;
+    private final int[] outWeights;
+    private final int[] inOffsets;
+    private final int[] inIds;
+    private final int[] inWeights;
+    private final MemoryStats memoryStats;
+
+    // Abstraction function:
+    //   Represents the graph whose vertices are labels[0..n-1] and which has an
+    //   edge labels[i] -> labels[outIds[k]] of weight outWeights[k] for each
+    //   outOffsets[i] <= k < outOffsets[i+1]. The in* arrays hold the same
+    //   edges indexed by target.
+    // Representation invariant:
+    //   - ids.get(labels[i]) == i for all i, and ids.size() == labels.length.
+    //   - offsets arrays have length n+1, start at 0, are non-decreasing and
+    //     end at the number of edges.
+    //   - Within each row, ids are strictly increasing; weights are positive.
+    //   - memoryStats describes these arrays.
+    // Safety from rep exposure:
+    //   Fields are private and final and never modified after construction;
+    //   observers return unmodifiable views; MemoryStats is immutable.
+
+    /**
+     * Create an immutable copy of another graph.
+     *
+     * @param graph graph to copy
+     */
+    @SuppressWarnings("unchecked")
+    ArrayGraph(Graph<L> graph) {
+        Set<L> vertices = graph.vertices();
+        int n = vertices.size();
+        labels = vertices.toArray();
+        ids = new HashMap<>((int) (n / 0.75f) + 1);
+        for (int i = 0; i < n; i++) {
+            ids.put((L) labels[i], i);
+        }
+
+        int[] outDegree = new int[n];
+        int[] inDegree = new int[n];
+        int edges = 0;
+        for (int i = 0; i < n; i++) {
+            for (L target : graph.targets((L) labels[i]).keySet()) {
+                outDegree[i]++;
+                inDegree[ids.get(target)]++;
+                edges++;
+            }
+        }
+        outOffsets = offsets(outDegree);
+        inOffsets = offsets(inDegree);
+        outIds = new int[edges];
+        outWeights = new int[edges];
+        inIds = new int[edges];
+        inWeights = new int[edges];
+
+        // Visiting sources in id order fills each in-row already sorted
+        int[] inFill = Arrays.copyOf(inOffsets, n);
+        for (int i = 0; i < n; i++) {
+            Map<L, Integer> out = graph.targets((L) labels[i]);
+            int start = outOffsets[i];
+            int k = start;
+            for (Map.Entry<L, Integer> edge : out.entrySet()) {
+                outIds[k++] = ids.get(edge.getKey());
+            }
+            Arrays.sort(outIds, start, k);
+            for (int j = start; j < k; j++) {
+                int weight = out.get((L) labels[outIds[j]]);
+                outWeights[j] = weight;
+                int slot = inFill[outIds[j]]++;
+                inIds[slot] = i;
+                inWeights[slot] = weight;
+            }
+        }
+        memoryStats = measure();
+        checkRep();
+    }
+
+    private static int[] offsets(int[] degree) {
+        int[] offsets = new int[degree.length + 1];
+        for (int i = 0; i < degree.length; i++) {
+            offsets[i + 1] = offsets[i] + degree[i];
+        }
+        return offsets;
+    }
+
+    // Nothing changes after construction, so the estimate is computed once
+    private MemoryStats measure() {
+        int n = labels.length;
+        long[] histogram = new long[MemoryStats.BUCKETS];
+        long labelBytes = 0;
+        for (int i = 0; i < n; i++) {
+            histogram[MemoryStats.bucket(outOffsets[i + 1] - outOffsets[i])]++;
+            labelBytes += MemoryStats.labelBytes(labels[i]);
+        }
+        // Labels array, id map entries and two offset arrays per vertex; four int arrays per edge
+        long vertexBytes = MemoryStats.align(MemoryStats.ARRAY + n * MemoryStats.REF)
+                + n * (MemoryStats.NODE + MemoryStats.BOXED)
+                + 2 * MemoryStats.align(MemoryStats.ARRAY + 4L * (n + 1));
+        long edgeBytes = 4 * MemoryStats.align(MemoryStats.ARRAY + 4L * outIds.length);
+        return new MemoryStats(n, outIds.length, vertexBytes, edgeBytes, labelBytes,
+                MemoryStats.tableBytes(n), histogram);
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        assert ids.size() == labels.length : "Every label should have a unique id";
+        assert outOffsets[labels.length] == outIds.length : "Out rows should cover every edge";
+        assert inOffsets[labels.length] == inIds.length : "In rows should cover every edge";
+    }
+
+    /**
+     * @return number of edges in this graph
+     */
+    int edgeCount() {
+        return outIds.length;
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        throw new UnsupportedOperationException("ArrayGraph is immutable");
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        throw new UnsupportedOperationException("ArrayGraph is immutable");
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        throw new UnsupportedOperationException("ArrayGraph is immutable");
+    }
+
+    @Override
+    public Set<L> vertices() {
+        return Collections.unmodifiableSet(ids.keySet());
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Integer id = ids.get(target);
+        if (id == null) return Collections.emptyMap();
+        return new Row(inIds, inWeights, inOffsets[id], inOffsets[id + 1]);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Integer id = ids.get(source);
+        if (id == null) return Collections.emptyMap();
+        return new Row(outIds, outWeights, outOffsets[id], outOffsets[id + 1]);
+    }
+
+    @Override
+    public Spliterator<WeightedEdge<L>> edges() {
+        return new Edges(0, outIds.length);
+    }
+
+    @Override
+    public MemoryStats memoryStats() {
+        return memoryStats;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Vertices: ").append(vertices()).append("\n");
+        sb.append("Edges:\n");
+        for (int i = 0; i < labels.length; i++) {
+            for (int k = outOffsets[i]; k < outOffsets[i + 1]; k++) {
+                sb.append(labels[i]).append(" -> ").append(labels[outIds[k]])
+                        .append(" (").append(outWeights[k]).append(")\n");
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Spliterator over a range of edge slots; splits halve the range, so every
+     * part knows its exact size.
+     */
+    private class Edges implements Spliterator<WeightedEdge<L>> {
+        private int k;
+        private final int end;
+        private int source;
+
+        Edges(int from, int end) {
+            this.k = from;
+            this.end = end;
+            // Row of slot from: the last row starting at or before it
+            int lo = 0;
+            int hi = labels.length - 1;
+            while (lo < hi) {
+                int mid = (lo + hi + 1) >>> 1;
+                if (outOffsets[mid] <= from) lo = mid;
+                else hi = mid - 1;
+            }
+            this.source = lo;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean tryAdvance(Consumer<? super WeightedEdge<L>> action) {
+            if (k >= end) return false;
+            while (outOffsets[source + 1] <= k) source++;
+            action.accept(new WeightedEdge<>((L) labels[source], (L) labels[outIds[k]], outWeights[k]));
+            k++;
+            return true;
+        }
+
+        @Override
+        public Spliterator<WeightedEdge<L>> trySplit() {
+            int mid = (k + end) >>> 1;
+            if (mid <= k) return null;
+            Edges prefix = new Edges(k, mid);
+            k = mid;
+            while (outOffsets[source + 1] <= k) source++;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return end - k;
+        }
+
+        @Override
+        public int characteristics() {
+            return SIZED | SUBSIZED | NONNULL | DISTINCT | IMMUTABLE | ORDERED;
+        }
+    }
+
+    /**
+     * Unmodifiable map view of one row; lookups are O(log degree).
+     */
+    private class Row extends AbstractMap<L, Integer> {
+        private final int[] rowIds;
+        private final int[] rowWeights;
+        private final int from;
+        private final int to;
+
+        Row(int[] rowIds, int[] rowWeights, int from, int to) {
+            this.rowIds = rowIds;
+            this.rowWeights = rowWeights;
+            this.from = from;
+            this.to = to;
+        }
+
+        private int find(Object key) {
+            Integer id = ids.get(key);
+            if (id == null) return -1;
+            int k = Arrays.binarySearch(rowIds, from, to, id);
+            return k < 0 ? -1 : k;
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return find(key) >= 0;
+        }
+
+        @Override
+        public Integer get(Object key) {
+            int k = find(key);
+            return k < 0 ? null : rowWeights[k];
+        }
+
+        @Override
+        public Set<Map.Entry<L, Integer>> entrySet() {
+            return new AbstractSet<Map.Entry<L, Integer>>() {
+                @Override
+                public int size() {
+                    return to - from;
+                }
+
+                @Override
+                public Iterator<Map.Entry<L, Integer>> iterator() {
+                    return new Iterator<Map.Entry<L, Integer>>() {
+                        private int k = from;
+
+                        @Override
+                        public boolean hasNext() {
+                            return k < to;
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public Map.Entry<L, Integer> next() {
+                            if (k >= to) throw new NoSuchElementException();
+                            Map.Entry<L, Integer> entry = new SimpleImmutableEntry<>(
+                                    (L) labels[rowIds[k]], rowWeights[k]);
+                            k++;
+                            return entry;
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
@@ -6,6 +6,11 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
 
     private final Set<L> vertices = new HashSet<>();
     private final List<Edge<L>> edges = new ArrayList<>();
+    // Out-degree of every vertex with outgoing edges, and the running totals
+    // behind memoryStats(), both kept up to date by the mutators so that
+    // reporting memory never walks the edge list
+    private final Map<L, Integer> outDegrees = new HashMap<>();
+    private final MemoryCounter memory = new MemoryCounter();
 
     public ConcreteEdgesGraph() {
         checkRep();
@@ -19,11 +24,21 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
             assert vertices.contains(edge.getTarget()) : "Edge target should be in vertices set";
             assert edge.getWeight() > 0 : "Edge weight should be positive";
         }
+        int edgeSources = 0;
+        for (Map.Entry<L, Integer> degree : outDegrees.entrySet()) {
+            assert vertices.contains(degree.getKey()) : "Out-degree should be kept for vertices only";
+            assert degree.getValue() > 0 : "Only vertices with outgoing edges should have an out-degree";
+            edgeSources += degree.getValue();
+        }
+        assert edgeSources == edges.size() : "Out-degrees should sum to the number of edges";
+        assert memory.vertices() == vertices.size() : "Counter should match the vertices";
+        assert memory.edges() == edges.size() : "Counter should match the edges";
     }
 
     @Override
     public boolean add(L vertex) {
         boolean added = vertices.add(vertex);
+        if (added) memory.vertexAdded(vertex);
         checkRep();
         return added;
     }
@@ -51,6 +66,8 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
         if (weight > 0) {
             edges.add(new Edge<>(source, target, weight));
         }
+        if (toRemove == null && weight > 0) degreeChanged(source, 1);
+        if (toRemove != null && weight == 0) degreeChanged(source, -1);
 
         checkRep();
         return previousWeight;
@@ -62,12 +79,28 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
 
         vertices.remove(vertex);
 
-        edges.removeIf(edge -> edge.getSource().equals(vertex) || edge.getTarget().equals(vertex));
+        edges.removeIf(edge -> {
+            if (edge.getSource().equals(vertex)) return true;
+            if (!edge.getTarget().equals(vertex)) return false;
+            degreeChanged(edge.getSource(), -1);
+            return true;
+        });
+        Integer degree = outDegrees.remove(vertex);
+        if (degree != null) memory.outDegreeChanged(degree, 0);
+        memory.vertexRemoved(vertex);
 
         checkRep();
         return true;
     }
 
+    // Record source gaining or losing an outgoing edge
+    private void degreeChanged(L source, int delta) {
+        int degree = outDegrees.getOrDefault(source, 0);
+        if (degree + delta == 0) outDegrees.remove(source);
+        else outDegrees.put(source, degree + delta);
+        memory.outDegreeChanged(degree, degree + delta);
+    }
+
     @Override
     public Set<L> vertices() {
         return Collections.unmodifiableSet(vertices);
@@ -95,6 +128,25 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
         return Collections.unmodifiableMap(targets);
     }
 
+    @Override
+    public Spliterator<WeightedEdge<L>> edges() {
+        // The edge list splits evenly and knows its size, and its elements
+        // are already immutable edges, so nothing is copied
+        List<WeightedEdge<L>> view = Collections.unmodifiableList(edges);
+        return view.spliterator();
+    }
+
+    @Override
+    public MemoryStats memoryStats() {
+        // A set node per vertex; an Edge and a list slot per edge; a node and
+        // boxed count per vertex with outgoing edges
+        long vertexBytes = memory.vertices() * MemoryStats.NODE;
+        long edgeBytes = memory.edges() * (24 + MemoryStats.REF);
+        long indexBytes = MemoryStats.tableBytes(memory.vertices()) + MemoryStats.ARRAY
+                + outDegrees.size() * (MemoryStats.NODE + MemoryStats.BOXED) + MemoryStats.tableBytes(outDegrees.size());
+        return memory.stats(vertexBytes, edgeBytes, indexBytes);
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -112,35 +164,10 @@ public class ConcreteEdgesGraph<L> implements Graph<L> {
         return sb.toString();
     }
 
-    public static class Edge<L> {
-        private final L source;
-        private final L target;
-        private final int weight;
+    public static class Edge<L> extends WeightedEdge<L> {
 
         public Edge(L source, L target, int weight) {
-            if (source == null || target == null || weight <= 0) {
-                throw new IllegalArgumentException("Invalid source, target, or weight");
-            }
-            this.source = source;
-            this.target = target;
-            this.weight = weight;
-        }
-
-        public L getSource() {
-            return source;
-        }
-
-        public L getTarget() {
-            return target;
-        }
-
-        public int getWeight() {
-            return weight;
-        }
-
-        @Override
-        public String toString() {
-            return source + " -> " + target + " (" + weight + ")";
+            super(source, target, weight);
         }
     }
 }
@@ -7,10 +7,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.Spliterator;
 
 public class ConcreteVerticesGraph implements Graph<String> {
     
     private final List<Vertex> vertices = new ArrayList<>();
+    private int edgeCount;
+    private final MemoryCounter memory = new MemoryCounter();
 
     // Abstraction function:
     //   Represents a directed graph with vertices and edges. Each vertex in the
@@ -20,6 +23,7 @@ public class ConcreteVerticesGraph implements Graph<String> {
     //   - vertices is non-null.
     //   - Each Vertex object in vertices has unique vertex names.
     //   - Edge weights are non-negative, and no edge has a weight of zero (unless removed).
+    //   - edgeCount is the total number of edges of all vertices.
     //
     // Safety from rep exposure:
     //   - The vertices list is private and final.
@@ -47,6 +51,7 @@ public class ConcreteVerticesGraph implements Graph<String> {
             if (v.getName().equals(vertex)) return false;
         }
         vertices.add(new Vertex(vertex));
+        memory.vertexAdded(vertex);
         checkRep();
         return true;
     }
@@ -56,11 +61,15 @@ public class ConcreteVerticesGraph implements Graph<String> {
         Vertex sourceVertex = findOrCreateVertex(source);
         Vertex targetVertex = findOrCreateVertex(target);
         
+        int degree = sourceVertex.getEdgeView().size();
         int previousWeight = sourceVertex.setEdge(target, weight);
         
         if (weight == 0) {
             sourceVertex.removeEdge(target);
         }
+        degreeChanged(degree, sourceVertex.getEdgeView().size());
+        if (previousWeight == 0 && weight > 0) edgeCount++;
+        if (previousWeight > 0 && weight == 0) edgeCount--;
         
         checkRep();
         return previousWeight;
@@ -79,9 +88,15 @@ public class ConcreteVerticesGraph implements Graph<String> {
         if (toRemove == null) return false;
         
         vertices.remove(toRemove);
+        edgeCount -= toRemove.getEdgeView().size();
+        degreeChanged(toRemove.getEdgeView().size(), 0);
+        memory.vertexRemoved(vertex);
         
         for (Vertex v : vertices) {
-            v.removeEdge(vertex);
+            if (v.removeEdge(vertex)) {
+                edgeCount--;
+                degreeChanged(v.getEdgeView().size() + 1, v.getEdgeView().size());
+            }
         }
         
         checkRep();
@@ -119,6 +134,20 @@ public class ConcreteVerticesGraph implements Graph<String> {
         return Collections.emptyMap();
     }
 
+    @Override
+    public MemoryStats memoryStats() {
+        // A Vertex, its edge map and a list slot per vertex; a map node and boxed weight per edge
+        long vertexBytes = memory.vertices() * (24 + MemoryStats.MAP + MemoryStats.REF);
+        long edgeBytes = memory.edges() * (MemoryStats.NODE + MemoryStats.BOXED);
+        return memory.stats(vertexBytes, edgeBytes, MemoryStats.ARRAY);
+    }
+
+    @Override
+    public Spliterator<WeightedEdge<String>> edges() {
+        // Splits over the vertex list, reading each vertex's edges in place
+        return new EdgeSpliterator<>(vertices, Vertex::getName, Vertex::getEdgeView, edgeCount);
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -131,12 +160,20 @@ public class ConcreteVerticesGraph implements Graph<String> {
     }
 
 
+    // Record a change in a vertex's out-degree, which is also the size of its edge map
+    private void degreeChanged(int from, int to) {
+        if (from == to) return;
+        memory.outDegreeChanged(from, to);
+        memory.tableChanged(from, to);
+    }
+
     private Vertex findOrCreateVertex(String name) {
         for (Vertex v : vertices) {
             if (v.getName().equals(name)) return v;
         }
         Vertex newVertex = new Vertex(name);
         vertices.add(newVertex);
+        memory.vertexAdded(name);
         return newVertex;
     }
 }
@@ -201,6 +238,10 @@ class Vertex {
         return new HashMap<>(edges);
     }
 
+    public Map<String, Integer> getEdgeView() {
+        return Collections.unmodifiableMap(edges);
+    }
+
     @Override
     public String toString() {
         StringBuilder result = new StringBuilder(name + " -> ");
@@ -0,0 +1,97 @@
+package graph;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * A spliterator over the edges of a graph stored as a list of vertices, each
+ * with a map of outgoing edges. Splits halve the remaining range of vertices.
+ *
+ * <p>If the total edge count is given, the unsplit spliterator reports it as
+ * SIZED; after a split, each half only estimates its size from the average
+ * out-degree, since per-vertex degrees are not known in advance.
+ */
+class EdgeSpliterator<L, V> implements Spliterator<WeightedEdge<L>> {
+
+    private final List<V> vertices;
+    private final Function<V, L> label;
+    private final Function<V, Map<L, Integer>> targets;
+    private final double averageDegree;
+    private int index;
+    private final int end;
+    private long exactSize;
+    private L source;
+    private Iterator<Map.Entry<L, Integer>> current;
+
+    // Abstraction function:
+    //   Represents the remaining edges of the partially consumed vertex
+    //   source (via current), followed by every edge out of
+    //   vertices[index..end-1].
+    // Representation invariant:
+    //   - 0 <= index <= end <= vertices.size().
+    //   - current is null iff no vertex is partially consumed.
+    //   - exactSize >= 0 is the exact number of remaining edges, or -1 if unknown.
+    // Safety from rep exposure:
+    //   Fields are private; edges are returned as new immutable objects.
+
+    /**
+     * @param vertices vertex list, not modified while this spliterator is in use
+     * @param label vertex label of a list element
+     * @param targets outgoing edges of a list element
+     * @param edgeCount total number of edges, or -1 if unknown
+     */
+    EdgeSpliterator(List<V> vertices, Function<V, L> label, Function<V, Map<L, Integer>> targets, long edgeCount) {
+        this(vertices, label, targets, 0, vertices.size(), edgeCount,
+                edgeCount < 0 ? 1.0 : (double) edgeCount / Math.max(1, vertices.size()));
+    }
+
+    private EdgeSpliterator(List<V> vertices, Function<V, L> label, Function<V, Map<L, Integer>> targets,
+            int index, int end, long exactSize, double averageDegree) {
+        this.vertices = vertices;
+        this.label = label;
+        this.targets = targets;
+        this.index = index;
+        this.end = end;
+        this.exactSize = exactSize;
+        this.averageDegree = averageDegree;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super WeightedEdge<L>> action) {
+        while (current == null || !current.hasNext()) {
+            if (index >= end) return false;
+            V vertex = vertices.get(index++);
+            source = label.apply(vertex);
+            current = targets.apply(vertex).entrySet().iterator();
+        }
+        Map.Entry<L, Integer> edge = current.next();
+        if (exactSize > 0) exactSize--;
+        action.accept(new WeightedEdge<>(source, edge.getKey(), edge.getValue()));
+        return true;
+    }
+
+    @Override
+    public Spliterator<WeightedEdge<L>> trySplit() {
+        int mid = (index + end) >>> 1;
+        if (current != null || mid <= index) return null;
+        EdgeSpliterator<L, V> prefix = new EdgeSpliterator<>(vertices, label, targets, index, mid, -1, averageDegree);
+        index = mid;
+        exactSize = -1;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        if (exactSize >= 0) return exactSize;
+        return (long) Math.ceil((end - index) * averageDegree);
+    }
+
+    @Override
+    public int characteristics() {
+        return NONNULL | DISTINCT | (exactSize >= 0 ? SIZED : 0);
+    }
+}
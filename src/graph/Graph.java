@@ -1,13 +1,28 @@
 package graph;
 
+import java.util.ArrayList;
 import java.util.Map;
 import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public interface Graph<L> {
 
     // Returns an empty graph
     public static <L> Graph<L> empty() {
-        return new ConcreteEdgesGraph<>();  // Returns an empty graph (ConcreteEdgesGraph or ConcreteVerticesGraph)
+        return new AdaptiveGraph<>();  // Starts as an edge list and migrates as it grows
+    }
+
+    // Returns an empty graph whose starting representation suits the expected size
+    public static <L> Graph<L> withExpectedSize(int expectedVertices, int expectedEdges) {
+        return new AdaptiveGraph<>(expectedVertices, expectedEdges);
+    }
+
+    // Returns a view of graph that reports changes made through it to listeners
+    public static <L> ObservableGraph<L> observable(Graph<L> graph) {
+        return new ObservableGraph<>(graph);
     }
 
     // Adds a vertex to the graph
@@ -16,6 +31,15 @@ public interface Graph<L> {
     // Sets the edge from source to target with the specified weight
     int set(L source, L target, int weight);
 
+    // Adds amount (positive) to the weight of the edge from source to target, creating the edge if
+    // needed. The weight saturates at Integer.MAX_VALUE instead of overflowing. Returns the previous weight
+    default int increment(L source, L target, int amount) {
+        if (amount <= 0) throw new IllegalArgumentException("Increment must be positive");
+        int previous = targets(source).getOrDefault(target, 0);
+        set(source, target, previous > Integer.MAX_VALUE - amount ? Integer.MAX_VALUE : previous + amount);
+        return previous;
+    }
+
     // Removes a vertex from the graph
     boolean remove(L vertex);
 
@@ -28,4 +52,21 @@ public interface Graph<L> {
     // Returns a map of target vertices and their corresponding edge weights for a given source
     Map<L, Integer> targets(L source);
 
+    // Returns an estimate of the memory this graph uses and a summary of its out-degrees.
+    // Implementations that keep counts as they change answer in O(1); this default walks the graph
+    default MemoryStats memoryStats() {
+        return MemoryStats.estimate(this);
+    }
+
+    // Returns a spliterator over every edge, which must not be used across changes to the graph.
+    // Implementations split over their own storage; this default splits a snapshot of vertices()
+    default Spliterator<WeightedEdge<L>> edges() {
+        return new EdgeSpliterator<>(new ArrayList<>(vertices()), Function.identity(), this::targets, -1);
+    }
+
+    // Returns a sequential stream of every edge; call parallel() on it to split over edges()
+    default Stream<WeightedEdge<L>> edgeStream() {
+        return StreamSupport.stream(edges(), false);
+    }
+
 }
@@ -0,0 +1,139 @@
+package graph;
+
+/**
+ * An immutable record of one change to a graph, delivered to a
+ * {@link GraphListener}.
+ *
+ * <p>Edge events carry the weight before and after the change, so applying
+ * every event in order to a copy of the graph reproduces the graph. Removing a
+ * vertex is reported as one EDGE_REMOVED per incident edge followed by
+ * VERTEX_REMOVED.
+ */
+public final class GraphEvent<L> {
+
+    /** The kind of change. */
+    public enum Kind {
+        VERTEX_ADDED,
+        VERTEX_REMOVED,
+        EDGE_ADDED,
+        EDGE_CHANGED,
+        EDGE_REMOVED
+    }
+
+    private final Kind kind;
+    private final L source;
+    private final L target;
+    private final int previousWeight;
+    private final int weight;
+
+    // Abstraction function:
+    //   For vertex events, the vertex source was added or removed. For edge
+    //   events, the edge source -> target went from previousWeight to weight,
+    //   where 0 means absent.
+    // Representation invariant:
+    //   - kind and source are non-null.
+    //   - Vertex events: target is null, both weights are 0.
+    //   - EDGE_ADDED: previousWeight == 0 < weight.
+    //   - EDGE_CHANGED: 0 < previousWeight != weight > 0.
+    //   - EDGE_REMOVED: previousWeight > 0 == weight.
+    // Safety from rep exposure:
+    //   All fields are private, final and immutable or labels.
+
+    private GraphEvent(Kind kind, L source, L target, int previousWeight, int weight) {
+        this.kind = kind;
+        this.source = source;
+        this.target = target;
+        this.previousWeight = previousWeight;
+        this.weight = weight;
+        checkRep();
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        assert kind != null && source != null;
+        switch (kind) {
+        case VERTEX_ADDED:
+        case VERTEX_REMOVED:
+            assert target == null && previousWeight == 0 && weight == 0;
+            break;
+        case EDGE_ADDED:
+            assert previousWeight == 0 && weight > 0;
+            break;
+        case EDGE_CHANGED:
+            assert previousWeight > 0 && weight > 0 && previousWeight != weight;
+            break;
+        case EDGE_REMOVED:
+            assert previousWeight > 0 && weight == 0;
+            break;
+        default:
+            assert false : "Unknown kind";
+        }
+    }
+
+    /**
+     * @param vertex the added vertex
+     * @return a VERTEX_ADDED event
+     */
+    public static <L> GraphEvent<L> vertexAdded(L vertex) {
+        return new GraphEvent<>(Kind.VERTEX_ADDED, vertex, null, 0, 0);
+    }
+
+    /**
+     * @param vertex the removed vertex
+     * @return a VERTEX_REMOVED event
+     */
+    public static <L> GraphEvent<L> vertexRemoved(L vertex) {
+        return new GraphEvent<>(Kind.VERTEX_REMOVED, vertex, null, 0, 0);
+    }
+
+    /**
+     * @param source edge source
+     * @param target edge target
+     * @param previousWeight weight before the change, 0 if the edge was absent
+     * @param weight weight after the change, 0 if the edge is now absent
+     * @return the matching edge event, or null if the weights are equal
+     */
+    public static <L> GraphEvent<L> edge(L source, L target, int previousWeight, int weight) {
+        if (previousWeight == weight) return null;
+        Kind kind = previousWeight == 0 ? Kind.EDGE_ADDED
+                : weight == 0 ? Kind.EDGE_REMOVED
+                : Kind.EDGE_CHANGED;
+        return new GraphEvent<>(kind, source, target, previousWeight, weight);
+    }
+
+    /** @return the kind of change */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /** @return true iff this is a vertex event */
+    public boolean isVertexEvent() {
+        return kind == Kind.VERTEX_ADDED || kind == Kind.VERTEX_REMOVED;
+    }
+
+    /** @return the vertex of a vertex event, or the source of an edge event */
+    public L getSource() {
+        return source;
+    }
+
+    /** @return the target of an edge event, or null for a vertex event */
+    public L getTarget() {
+        return target;
+    }
+
+    /** @return edge weight before the change, 0 if absent or a vertex event */
+    public int getPreviousWeight() {
+        return previousWeight;
+    }
+
+    /** @return edge weight after the change, 0 if absent or a vertex event */
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    public String toString() {
+        if (isVertexEvent()) return kind + " " + source;
+        return kind + " " + source + " -> " + target + " (" + previousWeight + " -> " + weight + ")";
+    }
+}
@@ -0,0 +1,15 @@
+package graph;
+
+import java.util.List;
+
+/**
+ * Receives changes made to an {@link ObservableGraph}.
+ */
+@FunctionalInterface
+public interface GraphListener<L> {
+
+    // Called with one or more changes, in the order they were made. Outside a
+    // batch, each mutation that changes the graph is delivered on its own.
+    void graphChanged(List<GraphEvent<L>> events);
+
+}
@@ -0,0 +1,181 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+
+/**
+ * A mutable graph stored as hashed adjacency maps in both directions, so every
+ * operation except vertex removal is expected O(1) and vertex removal is
+ * O(degree).
+ */
+class HashedGraph<L> implements Graph<L> {
+
+    private final Map<L, Map<L, Integer>> targets;
+    private final Map<L, Map<L, Integer>> sources;
+    private int edgeCount;
+    private final MemoryCounter memory = new MemoryCounter();
+
+    // Abstraction function:
+    //   Represents the graph whose vertices are targets.keySet() and which has
+    //   an edge s -> t of weight w iff targets.get(s).get(t) == w.
+    // Representation invariant:
+    //   - targets and sources have the same key set.
+    //   - targets.get(s).get(t) == w iff sources.get(t).get(s) == w.
+    //   - Every weight is positive.
+    //   - edgeCount is the number of edges.
+    //   - memory counts the vertices, edges and out-degrees of this graph.
+    // Safety from rep exposure:
+    //   Fields are private and final; observers return unmodifiable views.
+
+    HashedGraph() {
+        this(16);
+    }
+
+    /**
+     * @param expectedVertices number of vertices to size the maps for
+     */
+    HashedGraph(int expectedVertices) {
+        int capacity = Math.max(16, (int) (expectedVertices / 0.75f) + 1);
+        targets = new HashMap<>(capacity);
+        sources = new HashMap<>(capacity);
+        checkRep();
+    }
+
+    /**
+     * Create a hashed copy of another graph.
+     *
+     * @param graph graph to copy
+     */
+    HashedGraph(Graph<L> graph) {
+        this(graph.vertices().size());
+        for (L vertex : graph.vertices()) {
+            add(vertex);
+        }
+        for (L source : graph.vertices()) {
+            for (Map.Entry<L, Integer> edge : graph.targets(source).entrySet()) {
+                set(source, edge.getKey(), edge.getValue());
+            }
+        }
+    }
+
+    // Check representation invariant; linear in the size of the graph, so
+    // only the cheap part runs on every mutation.
+    private void checkRep() {
+        assert targets.size() == sources.size() : "Adjacency maps should cover the same vertices";
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        if (targets.containsKey(vertex)) return false;
+        targets.put(vertex, new HashMap<>());
+        sources.put(vertex, new HashMap<>());
+        memory.vertexAdded(vertex);
+        checkRep();
+        return true;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        if (weight < 0) throw new IllegalArgumentException("Edge weight cannot be negative");
+        add(source);
+        add(target);
+        Map<L, Integer> out = targets.get(source);
+        Map<L, Integer> in = sources.get(target);
+        Integer previous;
+        if (weight == 0) {
+            previous = out.remove(target);
+            in.remove(source);
+            if (previous != null) {
+                edgeCount--;
+                rowsChanged(out.size() + 1, out.size(), in.size() + 1, in.size());
+            }
+        } else {
+            previous = out.put(target, weight);
+            in.put(source, weight);
+            if (previous == null) {
+                edgeCount++;
+                rowsChanged(out.size() - 1, out.size(), in.size() - 1, in.size());
+            }
+        }
+        checkRep();
+        return previous == null ? 0 : previous;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        Map<L, Integer> out = targets.remove(vertex);
+        if (out == null) return false;
+        Map<L, Integer> in = sources.remove(vertex);
+        edgeCount -= out.size() + in.size() - (out.containsKey(vertex) ? 1 : 0);
+        for (L target : out.keySet()) {
+            Map<L, Integer> targetSources = sources.get(target);
+            if (targetSources != null) {
+                targetSources.remove(vertex);
+                memory.tableChanged(targetSources.size() + 1, targetSources.size());
+            }
+        }
+        for (L source : in.keySet()) {
+            Map<L, Integer> sourceTargets = targets.get(source);
+            if (sourceTargets != null) {
+                sourceTargets.remove(vertex);
+                memory.outDegreeChanged(sourceTargets.size() + 1, sourceTargets.size());
+                memory.tableChanged(sourceTargets.size() + 1, sourceTargets.size());
+            }
+        }
+        memory.outDegreeChanged(out.size(), 0);
+        memory.tableChanged(out.size(), 0);
+        memory.tableChanged(in.size(), 0);
+        memory.vertexRemoved(vertex);
+        checkRep();
+        return true;
+    }
+
+    // Record an edge added to or removed from a source's out-row and a target's in-row
+    private void rowsChanged(int outFrom, int outTo, int inFrom, int inTo) {
+        memory.outDegreeChanged(outFrom, outTo);
+        memory.tableChanged(outFrom, outTo);
+        memory.tableChanged(inFrom, inTo);
+    }
+
+    @Override
+    public Set<L> vertices() {
+        return Collections.unmodifiableSet(targets.keySet());
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        Map<L, Integer> in = sources.get(target);
+        return in == null ? Collections.emptyMap() : Collections.unmodifiableMap(in);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        Map<L, Integer> out = targets.get(source);
+        return out == null ? Collections.emptyMap() : Collections.unmodifiableMap(out);
+    }
+
+    @Override
+    public MemoryStats memoryStats() {
+        // Per vertex, a node and a row map in each direction; per edge, a node
+        // and a boxed weight in each direction
+        long vertexBytes = memory.vertices() * 2 * (MemoryStats.NODE + MemoryStats.MAP);
+        long edgeBytes = memory.edges() * 2 * (MemoryStats.NODE + MemoryStats.BOXED);
+        return memory.stats(vertexBytes, edgeBytes, 2 * MemoryStats.tableBytes(targets.size()));
+    }
+
+    @Override
+    public Spliterator<WeightedEdge<L>> edges() {
+        List<Map.Entry<L, Map<L, Integer>>> rows = new ArrayList<>(targets.entrySet());
+        return new EdgeSpliterator<>(rows, Map.Entry::getKey, Map.Entry::getValue, edgeCount);
+    }
+
+    @Override
+    public String toString() {
+        return "Vertices: " + vertices() + "\nEdges: " + targets;
+    }
+}
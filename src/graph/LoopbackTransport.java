@@ -0,0 +1,226 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
+
+/**
+ * A {@link ShardTransport} whose shards are local graphs in this process,
+ * each guarded by its own lock.
+ *
+ * <p>Point requests (add, set, contains, targets) run on the calling thread. Requests
+ * that a {@link ShardedGraph} fans out to every shard (remove, vertices,
+ * sources, memoryStats) run on the executor, so they proceed on all shards
+ * in parallel.
+ */
+public class LoopbackTransport<L> implements ShardTransport<L> {
+
+    private final List<Shard<L>> shards;
+    private final Executor executor;
+
+    // Abstraction function:
+    //   Represents shards.size() shards, shard i being shards.get(i), with
+    //   fan-out requests run on executor.
+    // Representation invariant:
+    //   - shards is non-empty and contains no nulls; executor is non-null.
+    // Safety from rep exposure:
+    //   Fields are private and final; results are copies made under the
+    //   shard's lock.
+
+    /**
+     * Create shards backed by graphs from backing, fanning out on the common
+     * fork/join pool, or on the calling thread if that pool has a single
+     * worker and so could not run shards in parallel anyway.
+     *
+     * @param shardCount number of shards, at least 1
+     * @param backing creates the empty graph stored by each shard
+     */
+    public LoopbackTransport(int shardCount, Supplier<Graph<L>> backing) {
+        this(shardCount, backing, ForkJoinPool.getCommonPoolParallelism() > 1 ? ForkJoinPool.commonPool() : Runnable::run);
+    }
+
+    /**
+     * Create shards backed by graphs from backing.
+     *
+     * @param shardCount number of shards, at least 1
+     * @param backing creates the empty graph stored by each shard
+     * @param executor runs fan-out requests
+     */
+    public LoopbackTransport(int shardCount, Supplier<Graph<L>> backing, Executor executor) {
+        if (shardCount < 1) throw new IllegalArgumentException("Shard count must be at least 1");
+        if (backing == null || executor == null) throw new IllegalArgumentException("Arguments cannot be null");
+        List<Shard<L>> list = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            list.add(new Shard<>(backing.get()));
+        }
+        this.shards = Collections.unmodifiableList(list);
+        this.executor = executor;
+        checkRep();
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        assert !shards.isEmpty() : "There should be at least one shard";
+        assert executor != null : "Executor should not be null";
+    }
+
+    @Override
+    public int shardCount() {
+        return shards.size();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> add(int shard, L vertex) {
+        return CompletableFuture.completedFuture(shards.get(shard).add(vertex));
+    }
+
+    @Override
+    public CompletableFuture<Integer> set(int shard, L source, L target, int weight) {
+        try {
+            return CompletableFuture.completedFuture(shards.get(shard).set(source, target, weight));
+        } catch (RuntimeException e) {
+            CompletableFuture<Integer> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+    }
+
+    @Override
+    public CompletableFuture<Boolean> remove(int shard, L vertex) {
+        return CompletableFuture.supplyAsync(() -> shards.get(shard).remove(vertex), executor);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> contains(int shard, L vertex) {
+        return CompletableFuture.completedFuture(shards.get(shard).contains(vertex));
+    }
+
+    @Override
+    public CompletableFuture<Set<L>> vertices(int shard) {
+        return CompletableFuture.supplyAsync(() -> shards.get(shard).vertices(), executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<L, Integer>> sources(int shard, L target) {
+        return CompletableFuture.supplyAsync(() -> shards.get(shard).sources(target), executor);
+    }
+
+    @Override
+    public CompletableFuture<Map<L, Integer>> targets(int shard, L source) {
+        return CompletableFuture.completedFuture(shards.get(shard).targets(source));
+    }
+
+    @Override
+    public CompletableFuture<MemoryStats> memoryStats(int shard) {
+        return CompletableFuture.supplyAsync(() -> shards.get(shard).memoryStats(), executor);
+    }
+
+    @Override
+    public void close() {
+        // Nothing to release; the executor belongs to the caller
+    }
+
+    @Override
+    public String toString() {
+        return "LoopbackTransport with " + shards.size() + " shards";
+    }
+
+    /**
+     * One shard: its owned vertices and a graph holding their outgoing edges,
+     * plus any targets of those edges owned by other shards.
+     */
+    private static class Shard<L> {
+        private final Graph<L> graph;
+        private final Set<L> owned = new HashSet<>();
+        private long foreignLabelBytes;
+
+        // Abstraction function:
+        //   Represents the vertices owned and the edges of graph.
+        // Representation invariant:
+        //   - owned is a subset of graph.vertices().
+        //   - Every vertex of graph not in owned is the target of an edge
+        //     from an owned vertex.
+        //   - foreignLabelBytes is the estimated label bytes of the vertices
+        //     of graph not in owned.
+        // Safety from rep exposure:
+        //   Every method is synchronized and returns copies.
+
+        Shard(Graph<L> graph) {
+            this.graph = graph;
+        }
+
+        synchronized boolean add(L vertex) {
+            if (!owned.contains(vertex) && graph.vertices().contains(vertex)) {
+                foreignLabelBytes -= MemoryStats.labelBytes(vertex);
+            }
+            graph.add(vertex);
+            return owned.add(vertex);
+        }
+
+        synchronized int set(L source, L target, int weight) {
+            if (!owned.contains(source)) return -1;
+            boolean known = graph.vertices().contains(target);
+            int previous = graph.set(source, target, weight);
+            if (!known) foreignLabelBytes += MemoryStats.labelBytes(target);
+            if (weight == 0) dropIfUnreferenced(target);
+            return previous;
+        }
+
+        synchronized boolean remove(L vertex) {
+            if (!graph.vertices().contains(vertex)) return false;
+            Set<L> targets = new HashSet<>(graph.targets(vertex).keySet());
+            graph.remove(vertex);
+            for (L target : targets) {
+                dropIfUnreferenced(target);
+            }
+            boolean wasOwned = owned.remove(vertex);
+            if (!wasOwned) foreignLabelBytes -= MemoryStats.labelBytes(vertex);
+            return wasOwned;
+        }
+
+        synchronized boolean contains(L vertex) {
+            return owned.contains(vertex);
+        }
+
+        synchronized Set<L> vertices() {
+            return new HashSet<>(owned);
+        }
+
+        synchronized Map<L, Integer> sources(L target) {
+            return new HashMap<>(graph.sources(target));
+        }
+
+        synchronized Map<L, Integer> targets(L source) {
+            return new HashMap<>(graph.targets(source));
+        }
+
+        // The backing graph's estimate plus the owned set. Vertices owned
+        // elsewhere count towards bytes of structure but not as vertices or
+        // labels, which their owning shard counts; they are never sources
+        // here, so they all sit in out-degree bucket 0
+        synchronized MemoryStats memoryStats() {
+            MemoryStats stats = graph.memoryStats();
+            long[] histogram = stats.getOutDegreeHistogram();
+            histogram[0] -= stats.getVertexCount() - owned.size();
+            return new MemoryStats(owned.size(), stats.getEdgeCount(),
+                    stats.getVertexBytes() + owned.size() * MemoryStats.NODE, stats.getEdgeBytes(),
+                    stats.getLabelBytes() - foreignLabelBytes,
+                    stats.getIndexBytes() + MemoryStats.tableBytes(owned.size()), histogram);
+        }
+
+        // Forget a vertex owned elsewhere once no edge here points to it
+        private void dropIfUnreferenced(L vertex) {
+            if (!owned.contains(vertex) && graph.sources(vertex).isEmpty() && graph.remove(vertex)) {
+                foreignLabelBytes -= MemoryStats.labelBytes(vertex);
+            }
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package graph;
+
+/**
+ * Running counts behind {@link Graph#memoryStats()}, updated by a graph as it
+ * changes so that reporting its memory costs O(1) rather than a walk.
+ */
+final class MemoryCounter {
+
+    private int vertices;
+    private long edges;
+    private long labelBytes;
+    private long tableBytes;
+    private final long[] outDegrees = new long[MemoryStats.BUCKETS];
+
+    // Abstraction function:
+    //   Represents a graph of vertices vertices and edges edges, whose labels
+    //   take labelBytes, whose per-vertex hash tables take tableBytes, and
+    //   whose out-degrees fall into buckets as counted by outDegrees.
+    // Representation invariant:
+    //   - vertices, edges, labelBytes, tableBytes >= 0.
+    //   - outDegrees sums to vertices.
+    // Safety from rep exposure:
+    //   All fields are private; outDegrees is copied by MemoryStats.
+
+    /**
+     * Record a new vertex, with no outgoing edges.
+     *
+     * @param label its label
+     */
+    void vertexAdded(Object label) {
+        vertices++;
+        labelBytes += MemoryStats.labelBytes(label);
+        outDegrees[0]++;
+    }
+
+    /**
+     * Record removing a vertex whose out-degree has already been recorded as 0.
+     *
+     * @param label its label
+     */
+    void vertexRemoved(Object label) {
+        vertices--;
+        labelBytes -= MemoryStats.labelBytes(label);
+        outDegrees[0]--;
+    }
+
+    /**
+     * Record a vertex gaining or losing outgoing edges.
+     *
+     * @param from previous out-degree
+     * @param to new out-degree
+     */
+    void outDegreeChanged(int from, int to) {
+        outDegrees[MemoryStats.bucket(from)]--;
+        outDegrees[MemoryStats.bucket(to)]++;
+        edges += to - from;
+    }
+
+    /**
+     * Record a per-vertex hash map growing or shrinking.
+     *
+     * @param from previous number of entries
+     * @param to new number of entries
+     */
+    void tableChanged(int from, int to) {
+        tableBytes += MemoryStats.tableBytes(to) - MemoryStats.tableBytes(from);
+    }
+
+    /**
+     * @return number of vertices
+     */
+    int vertices() {
+        return vertices;
+    }
+
+    /**
+     * @return number of edges
+     */
+    long edges() {
+        return edges;
+    }
+
+    /**
+     * @param vertexBytes estimated bytes of per-vertex structure
+     * @param edgeBytes estimated bytes of per-edge structure
+     * @param indexBytes estimated bytes of indexes besides per-vertex hash tables
+     * @return the current estimate
+     */
+    MemoryStats stats(long vertexBytes, long edgeBytes, long indexBytes) {
+        assert vertices >= 0 && edges >= 0 && labelBytes >= 0 && tableBytes >= 0;
+        return new MemoryStats(vertices, edges, vertexBytes, edgeBytes, labelBytes, tableBytes + indexBytes,
+                outDegrees);
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryCounter of " + vertices + " vertices and " + edges + " edges";
+    }
+}
@@ -0,0 +1,296 @@
+package graph;
+
+import java.util.Arrays;
+
+/**
+ * An immutable estimate of the memory a graph uses, with a summary of its
+ * out-degree distribution.
+ *
+ * <p>Bytes are estimated from object counts for a 64-bit JVM with compressed
+ * references: 12-byte object headers, 4-byte references and 8-byte
+ * alignment. They exclude the graph's own wrapper object and assume each
+ * label is stored once, so they are a guide for sizing heaps and deciding
+ * when to prune, not an exact measurement.
+ *
+ * <p>Out-degrees are summarized in power-of-two buckets: bucket 0 counts
+ * vertices with no outgoing edges and bucket b &gt; 0 those with out-degree in
+ * [2^(b-1), 2^b - 1].
+ */
+public final class MemoryStats {
+
+    /** Bytes per reference. */
+    static final long REF = 4;
+
+    /** Bytes per array header. */
+    static final long ARRAY = 16;
+
+    /** Bytes per HashMap or HashSet entry node. */
+    static final long NODE = 32;
+
+    /** Bytes per boxed Integer or Long. */
+    static final long BOXED = 16;
+
+    /** Bytes per empty HashMap, before its table is allocated. */
+    static final long MAP = 48;
+
+    /** Number of out-degree buckets; an int degree needs at most 32 + 1. */
+    static final int BUCKETS = 33;
+
+    private final int vertexCount;
+    private final long edgeCount;
+    private final long vertexBytes;
+    private final long edgeBytes;
+    private final long labelBytes;
+    private final long indexBytes;
+    private final long[] outDegrees;
+
+    // Abstraction function:
+    //   Represents the estimate for a graph of vertexCount vertices and
+    //   edgeCount edges using vertexBytes per-vertex structure, edgeBytes
+    //   per-edge structure, labelBytes for label objects and indexBytes for
+    //   hash tables and array slack, whose vertices have out-degrees
+    //   distributed as outDegrees[b] per bucket b.
+    // Representation invariant:
+    //   - every count and byte total is non-negative.
+    //   - outDegrees.length == BUCKETS and its sum is vertexCount.
+    // Safety from rep exposure:
+    //   All fields are private and final; outDegrees is copied in and out.
+
+    /**
+     * @param vertexCount number of vertices
+     * @param edgeCount number of edges
+     * @param vertexBytes estimated bytes of per-vertex structure
+     * @param edgeBytes estimated bytes of per-edge structure
+     * @param labelBytes estimated bytes of label objects
+     * @param indexBytes estimated bytes of hash tables and spare array capacity
+     * @param outDegreeHistogram vertices per out-degree bucket, of length at most
+     *                           33 and summing to vertexCount
+     */
+    public MemoryStats(int vertexCount, long edgeCount, long vertexBytes, long edgeBytes,
+            long labelBytes, long indexBytes, long[] outDegreeHistogram) {
+        if (vertexCount < 0 || edgeCount < 0 || vertexBytes < 0 || edgeBytes < 0 || labelBytes < 0 || indexBytes < 0) {
+            throw new IllegalArgumentException("Counts and sizes cannot be negative");
+        }
+        if (outDegreeHistogram.length > BUCKETS) throw new IllegalArgumentException("Too many degree buckets");
+        long sum = 0;
+        for (long count : outDegreeHistogram) {
+            if (count < 0) throw new IllegalArgumentException("Bucket counts cannot be negative");
+            sum += count;
+        }
+        if (sum != vertexCount) throw new IllegalArgumentException("Buckets must cover every vertex");
+        this.vertexCount = vertexCount;
+        this.edgeCount = edgeCount;
+        this.vertexBytes = vertexBytes;
+        this.edgeBytes = edgeBytes;
+        this.labelBytes = labelBytes;
+        this.indexBytes = indexBytes;
+        this.outDegrees = Arrays.copyOf(outDegreeHistogram, BUCKETS);
+        checkRep();
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        assert outDegrees.length == BUCKETS;
+        assert Arrays.stream(outDegrees).sum() == vertexCount;
+    }
+
+    /**
+     * Estimate the memory of any graph by walking its vertices and rows,
+     * costed as one hashed map of targets per vertex. Linear in the size of
+     * the graph; implementations that keep counts up to date avoid it.
+     *
+     * @param <L> type of vertex labels
+     * @param graph graph to estimate
+     * @return the estimate
+     */
+    static <L> MemoryStats estimate(Graph<L> graph) {
+        long[] histogram = new long[BUCKETS];
+        long edges = 0;
+        long labels = 0;
+        long tables = 0;
+        int vertices = 0;
+        for (L vertex : graph.vertices()) {
+            int degree = graph.targets(vertex).size();
+            histogram[bucket(degree)]++;
+            edges += degree;
+            labels += labelBytes(vertex);
+            tables += tableBytes(degree);
+            vertices++;
+        }
+        return new MemoryStats(vertices, edges, vertices * (NODE + MAP), edges * (NODE + BOXED), labels,
+                tables + tableBytes(vertices), histogram);
+    }
+
+    /**
+     * @param degree a non-negative degree
+     * @return the histogram bucket of degree
+     */
+    static int bucket(int degree) {
+        return 32 - Integer.numberOfLeadingZeros(degree);
+    }
+
+    /**
+     * @param entries number of entries in a HashMap or HashSet with the default load factor
+     * @return estimated bytes of its table; 0 if empty, since tables are allocated on first use
+     */
+    static long tableBytes(long entries) {
+        if (entries == 0) return 0;
+        long capacity = Math.max(16, Long.highestOneBit((long) (entries / 0.75f) * 2 - 1));
+        return ARRAY + capacity * REF;
+    }
+
+    /**
+     * @param label a vertex label
+     * @return estimated bytes of label: exact for Latin-1 strings and boxed
+     *         numbers, a bare object otherwise
+     */
+    static long labelBytes(Object label) {
+        if (label instanceof String) {
+            // String object (24) plus its byte array, one byte per Latin-1 char
+            return 24 + align(ARRAY + ((String) label).length());
+        }
+        if (label instanceof Long || label instanceof Integer) return BOXED;
+        return 16;
+    }
+
+    /**
+     * @param bytes size of an object
+     * @return bytes rounded up to the 8-byte allocation unit
+     */
+    static long align(long bytes) {
+        return (bytes + 7) & ~7L;
+    }
+
+    /**
+     * @return number of vertices
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * @return number of edges
+     */
+    public long getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * @return estimated bytes of per-vertex structure, excluding labels
+     */
+    public long getVertexBytes() {
+        return vertexBytes;
+    }
+
+    /**
+     * @return estimated bytes of per-edge structure
+     */
+    public long getEdgeBytes() {
+        return edgeBytes;
+    }
+
+    /**
+     * @return estimated bytes of label objects, counting each vertex's label once
+     */
+    public long getLabelBytes() {
+        return labelBytes;
+    }
+
+    /**
+     * @return estimated bytes of hash tables and spare array capacity
+     */
+    public long getIndexBytes() {
+        return indexBytes;
+    }
+
+    /**
+     * @return estimated total bytes
+     */
+    public long getTotalBytes() {
+        return vertexBytes + edgeBytes + labelBytes + indexBytes;
+    }
+
+    /**
+     * @return vertices per out-degree bucket, as described above; a new array of length 33
+     */
+    public long[] getOutDegreeHistogram() {
+        return outDegrees.clone();
+    }
+
+    /**
+     * @return mean out-degree, or 0 for an empty graph
+     */
+    public double getMeanOutDegree() {
+        return vertexCount == 0 ? 0 : (double) edgeCount / vertexCount;
+    }
+
+    /**
+     * @return an upper bound on the largest out-degree: the top of the highest
+     *         non-empty bucket, or 0 for a graph without edges
+     */
+    public long getMaxOutDegreeBound() {
+        for (int b = BUCKETS - 1; b > 0; b--) {
+            if (outDegrees[b] > 0) return (1L << b) - 1;
+        }
+        return 0;
+    }
+
+    /**
+     * @param that another estimate
+     * @return the estimate for holding both this graph and that one
+     */
+    public MemoryStats plus(MemoryStats that) {
+        long[] histogram = new long[BUCKETS];
+        for (int b = 0; b < BUCKETS; b++) {
+            histogram[b] = outDegrees[b] + that.outDegrees[b];
+        }
+        return new MemoryStats(vertexCount + that.vertexCount, edgeCount + that.edgeCount,
+                vertexBytes + that.vertexBytes, edgeBytes + that.edgeBytes,
+                labelBytes + that.labelBytes, indexBytes + that.indexBytes, histogram);
+    }
+
+    /**
+     * @param extraLabelBytes estimated bytes of label objects held outside the graph
+     * @param extraIndexBytes estimated bytes of lookup structures held outside the graph
+     * @return this estimate with the extra bytes added
+     */
+    public MemoryStats plusBytes(long extraLabelBytes, long extraIndexBytes) {
+        return new MemoryStats(vertexCount, edgeCount, vertexBytes, edgeBytes,
+                labelBytes + extraLabelBytes, indexBytes + extraIndexBytes, outDegrees);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof MemoryStats)) return false;
+        MemoryStats that = (MemoryStats) obj;
+        return vertexCount == that.vertexCount && edgeCount == that.edgeCount
+                && vertexBytes == that.vertexBytes && edgeBytes == that.edgeBytes
+                && labelBytes == that.labelBytes && indexBytes == that.indexBytes
+                && Arrays.equals(outDegrees, that.outDegrees);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(getTotalBytes()) * 31 + Arrays.hashCode(outDegrees);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(vertexCount).append(" vertices, ").append(edgeCount).append(" edges, ~")
+                .append(getTotalBytes()).append(" bytes (vertices ").append(vertexBytes)
+                .append(", edges ").append(edgeBytes).append(", labels ").append(labelBytes)
+                .append(", index ").append(indexBytes).append("); out-degree mean ")
+                .append(String.format("%.2f", getMeanOutDegree())).append(", buckets {");
+        String separator = "";
+        for (int b = 0; b < BUCKETS; b++) {
+            if (outDegrees[b] == 0) continue;
+            long low = b == 0 ? 0 : 1L << (b - 1);
+            long high = b == 0 ? 0 : (1L << b) - 1;
+            sb.append(separator).append(low == high ? String.valueOf(low) : low + "-" + high)
+                    .append(": ").append(outDegrees[b]);
+            separator = ", ";
+        }
+        return sb.append("}").toString();
+    }
+}
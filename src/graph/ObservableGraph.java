@@ -0,0 +1,293 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A graph that wraps another graph and reports every change to registered
+ * {@link GraphListener}s.
+ *
+ * <p>Listeners registered without an executor are called synchronously, on
+ * the mutating thread, before the mutator returns; an exception thrown by a
+ * listener propagates to the caller after the graph has changed. Listeners
+ * registered with an executor receive the same event lists on that executor,
+ * one list at a time and in order.
+ *
+ * <p>Inside a {@link #batch()}, events are held back and delivered as a single
+ * list when the batch closes. Repeated changes to the same edge are coalesced
+ * into one event from its first previous weight to its last weight, and
+ * dropped if those are equal; vertex events are never coalesced, and edge
+ * changes are not coalesced across a vertex removal, so applying the list in
+ * order still reproduces the graph.
+ *
+ * <p>While no listener is registered, mutators only delegate: no events are
+ * built and vertex removal does not look up incident edges.
+ */
+public class ObservableGraph<L> implements Graph<L> {
+
+    private final Graph<L> graph;
+    private final List<Registration<L>> listeners = new CopyOnWriteArrayList<>();
+    private List<GraphEvent<L>> batch;
+    private Map<List<L>, Integer> batchEdges;
+    private int batchDepth;
+
+    // Abstraction function:
+    //   Represents the graph graph, observed by listeners.
+    // Representation invariant:
+    //   - graph is non-null, listeners contains no nulls.
+    //   - batchDepth >= 0; batch and batchEdges are non-null iff batchDepth > 0.
+    //   - batchEdges maps [source, target] to the index in batch of the edge
+    //     event it was last coalesced into, for edges changed since the last
+    //     vertex removal in the batch; that slot is null if the changes
+    //     cancelled out.
+    // Safety from rep exposure:
+    //   graph is private and never returned; observers return what graph
+    //   returns. Event lists passed to listeners are unmodifiable.
+
+    /**
+     * Wrap a graph. Changes made to graph directly, rather than through this
+     * wrapper, are not reported.
+     *
+     * @param graph graph to observe
+     */
+    public ObservableGraph(Graph<L> graph) {
+        if (graph == null) throw new IllegalArgumentException("Graph cannot be null");
+        this.graph = graph;
+        checkRep();
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        assert graph != null : "Graph should not be null";
+        assert batchDepth >= 0 : "Batch depth should not be negative";
+        assert (batch != null) == (batchDepth > 0) : "Batch should exist only while open";
+        assert (batchEdges != null) == (batchDepth > 0) : "Batch edges should exist only while open";
+    }
+
+    /**
+     * Register a listener called synchronously on every change.
+     *
+     * @param listener listener to add
+     */
+    public void addListener(GraphListener<L> listener) {
+        addListener(listener, null);
+    }
+
+    /**
+     * Register a listener whose events are delivered on executor, in order and
+     * never concurrently with each other.
+     *
+     * @param listener listener to add
+     * @param executor executor to deliver on, or null to deliver synchronously
+     */
+    public void addListener(GraphListener<L> listener, Executor executor) {
+        if (listener == null) throw new IllegalArgumentException("Listener cannot be null");
+        listeners.add(new Registration<>(listener, executor));
+    }
+
+    /**
+     * Unregister every registration of a listener. Events already handed to an
+     * executor may still be delivered.
+     *
+     * @param listener listener to remove
+     * @return true iff the listener was registered
+     */
+    public boolean removeListener(GraphListener<L> listener) {
+        return listeners.removeIf(registration -> registration.listener == listener);
+    }
+
+    /**
+     * Start a batch: events are held until the returned batch is closed, then
+     * coalesced and delivered together. Batches nest; events are delivered
+     * when the outermost batch closes.
+     *
+     * @return the batch, to be closed exactly once
+     */
+    public Batch batch() {
+        if (batchDepth++ == 0) {
+            batch = new ArrayList<>();
+            batchEdges = new HashMap<>();
+        }
+        checkRep();
+        return new Batch();
+    }
+
+    /**
+     * An open batch of changes; see {@link ObservableGraph#batch()}.
+     */
+    public class Batch implements AutoCloseable {
+        private boolean closed;
+
+        private Batch() {
+        }
+
+        /**
+         * Close the batch, delivering its events if it is the outermost one.
+         */
+        @Override
+        public void close() {
+            if (closed) return;
+            closed = true;
+            if (--batchDepth > 0) return;
+            List<GraphEvent<L>> events = new ArrayList<>(batch.size());
+            for (GraphEvent<L> event : batch) {
+                if (event != null) events.add(event);
+            }
+            batch = null;
+            batchEdges = null;
+            checkRep();
+            deliver(events);
+        }
+    }
+
+    private void emit(GraphEvent<L> event) {
+        if (batchDepth == 0) {
+            deliver(Collections.singletonList(event));
+        } else if (event.isVertexEvent()) {
+            batch.add(event);
+            // Edges re-added after a removal must not be coalesced into events
+            // before it; an addition needs no barrier, since no earlier event
+            // can mention a vertex that did not exist
+            if (event.getKind() == GraphEvent.Kind.VERTEX_REMOVED) batchEdges.clear();
+        } else {
+            List<L> key = Arrays.asList(event.getSource(), event.getTarget());
+            Integer index = batchEdges.get(key);
+            if (index == null) {
+                batchEdges.put(key, batch.size());
+                batch.add(event);
+            } else {
+                GraphEvent<L> earlier = batch.get(index);
+                int previous = earlier == null ? event.getPreviousWeight() : earlier.getPreviousWeight();
+                // An edge changed back to where it started leaves a hole, kept
+                // so later changes to the same edge still coalesce in place
+                batch.set(index, GraphEvent.edge(event.getSource(), event.getTarget(), previous, event.getWeight()));
+            }
+        }
+    }
+
+    private void deliver(List<GraphEvent<L>> events) {
+        if (events.isEmpty()) return;
+        List<GraphEvent<L>> unmodifiable = Collections.unmodifiableList(events);
+        for (Registration<L> registration : listeners) {
+            registration.deliver(unmodifiable);
+        }
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        boolean added = graph.add(vertex);
+        if (added && !listeners.isEmpty()) emit(GraphEvent.vertexAdded(vertex));
+        return added;
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        if (listeners.isEmpty()) return graph.set(source, target, weight);
+        if (weight < 0) throw new IllegalArgumentException("Edge weight cannot be negative");
+        // add reports whether each vertex is new in one lookup, where
+        // vertices() may copy the whole vertex set; set then finds both
+        boolean sourceAdded = graph.add(source);
+        boolean targetAdded = graph.add(target);
+        int previous = graph.set(source, target, weight);
+        if (sourceAdded) emit(GraphEvent.vertexAdded(source));
+        if (targetAdded) emit(GraphEvent.vertexAdded(target));
+        GraphEvent<L> event = GraphEvent.edge(source, target, previous, weight);
+        if (event != null) emit(event);
+        return previous;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        if (listeners.isEmpty()) return graph.remove(vertex);
+        Map<L, Integer> out = new HashMap<>(graph.targets(vertex));
+        Map<L, Integer> in = new HashMap<>(graph.sources(vertex));
+        if (!graph.remove(vertex)) return false;
+        for (Map.Entry<L, Integer> edge : out.entrySet()) {
+            emit(GraphEvent.edge(vertex, edge.getKey(), edge.getValue(), 0));
+        }
+        for (Map.Entry<L, Integer> edge : in.entrySet()) {
+            // A self loop is already reported as an outgoing edge
+            if (!edge.getKey().equals(vertex)) emit(GraphEvent.edge(edge.getKey(), vertex, edge.getValue(), 0));
+        }
+        emit(GraphEvent.vertexRemoved(vertex));
+        return true;
+    }
+
+    @Override
+    public Set<L> vertices() {
+        return graph.vertices();
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        return graph.sources(target);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        return graph.targets(source);
+    }
+
+    @Override
+    public Spliterator<WeightedEdge<L>> edges() {
+        return graph.edges();
+    }
+
+    @Override
+    public MemoryStats memoryStats() {
+        return graph.memoryStats();
+    }
+
+    @Override
+    public String toString() {
+        return graph.toString();
+    }
+
+    /**
+     * A listener and how to deliver to it.
+     */
+    private static class Registration<L> {
+        private final GraphListener<L> listener;
+        private final Executor executor;
+        private final Queue<List<GraphEvent<L>>> pending = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Registration(GraphListener<L> listener, Executor executor) {
+            this.listener = listener;
+            this.executor = executor;
+        }
+
+        void deliver(List<GraphEvent<L>> events) {
+            if (executor == null) {
+                listener.graphChanged(events);
+                return;
+            }
+            pending.add(events);
+            if (scheduled.compareAndSet(false, true)) executor.execute(this::drain);
+        }
+
+        // Deliver pending lists until none are left; only one drain runs at a time
+        private void drain() {
+            try {
+                List<GraphEvent<L>> events;
+                while ((events = pending.poll()) != null) {
+                    listener.graphChanged(events);
+                }
+            } finally {
+                scheduled.set(false);
+                if (!pending.isEmpty() && scheduled.compareAndSet(false, true)) executor.execute(this::drain);
+            }
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable rule for dropping light edges from a graph, to bound the
+ * memory taken by the long tail of rarely seen pairs. A policy combines up to
+ * four limits, applied in order:
+ * <ol>
+ *   <li>a minimum weight: lighter edges are dropped;
+ *   <li>a per-vertex limit: only the heaviest targets of each vertex are kept;
+ *   <li>a global edge count: only the heaviest edges overall are kept;
+ *   <li>a global byte budget: only as many of the heaviest edges overall are
+ *       kept as fit, by the graph's {@link Graph#memoryStats()}.
+ * </ol>
+ * Pruning removes edges only; vertices are kept even if left isolated. Among
+ * edges of equal weight at a cut-off, which are kept depends on the graph's
+ * iteration order.
+ */
+public final class PrunePolicy {
+
+    private static final PrunePolicy NONE = new PrunePolicy(1, Integer.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+
+    private final int minWeight;
+    private final int maxTargets;
+    private final long maxEdges;
+    private final long maxBytes;
+
+    // Abstraction function:
+    //   Represents the policy keeping edges of weight >= minWeight, at most
+    //   maxTargets per source, at most maxEdges in total, and only as many as
+    //   fit in maxBytes.
+    // Representation invariant:
+    //   minWeight >= 1, maxTargets >= 0, maxEdges >= 0, maxBytes >= 0.
+    // Safety from rep exposure:
+    //   All fields are private, final and immutable.
+
+    private PrunePolicy(int minWeight, int maxTargets, long maxEdges, long maxBytes) {
+        this.minWeight = minWeight;
+        this.maxTargets = maxTargets;
+        this.maxEdges = maxEdges;
+        this.maxBytes = maxBytes;
+        checkRep();
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        assert minWeight >= 1;
+        assert maxTargets >= 0;
+        assert maxEdges >= 0;
+        assert maxBytes >= 0;
+    }
+
+    /**
+     * @return the policy that keeps every edge
+     */
+    public static PrunePolicy none() {
+        return NONE;
+    }
+
+    /**
+     * @param minWeight smallest weight kept, at least 1
+     * @return this policy, also dropping edges lighter than minWeight
+     */
+    public PrunePolicy minWeight(int minWeight) {
+        if (minWeight < 1) throw new IllegalArgumentException("Minimum weight must be at least 1");
+        return new PrunePolicy(minWeight, maxTargets, maxEdges, maxBytes);
+    }
+
+    /**
+     * @param maxTargets number of heaviest outgoing edges kept per vertex, non-negative
+     * @return this policy, also limiting the out-degree of every vertex
+     */
+    public PrunePolicy maxTargetsPerVertex(int maxTargets) {
+        if (maxTargets < 0) throw new IllegalArgumentException("Target limit cannot be negative");
+        return new PrunePolicy(minWeight, maxTargets, maxEdges, maxBytes);
+    }
+
+    /**
+     * Limit the number of edges overall, a count rather than bytes; see
+     * {@link #maxBytes} for a memory budget.
+     *
+     * @param maxEdges number of heaviest edges kept overall, non-negative
+     * @return this policy, also limiting the total number of edges
+     */
+    public PrunePolicy maxEdges(long maxEdges) {
+        if (maxEdges < 0) throw new IllegalArgumentException("Edge limit cannot be negative");
+        return new PrunePolicy(minWeight, maxTargets, maxEdges, maxBytes);
+    }
+
+    /**
+     * Limit the estimated memory of the graph. When pruning, the graph's
+     * {@link Graph#memoryStats()} is read once: its bytes other than edge
+     * bytes stay, since vertices are never removed, and each edge costs the
+     * average edge bytes; the heaviest edges that fit are kept. A budget below
+     * the bytes that stay drops every edge.
+     *
+     * @param maxBytes estimated bytes the pruned graph may take, non-negative
+     * @return this policy, also limiting the graph's memory
+     */
+    public PrunePolicy maxBytes(long maxBytes) {
+        if (maxBytes < 0) throw new IllegalArgumentException("Byte budget cannot be negative");
+        return new PrunePolicy(minWeight, maxTargets, maxEdges, maxBytes);
+    }
+
+    /**
+     * Remove every edge of graph this policy drops. Takes two passes over the
+     * graph and allocates only for the dropped edges, one row of weights and
+     * a count per distinct weight, not a copy of every edge.
+     *
+     * @param <L> type of vertex labels
+     * @param graph graph to prune, modified
+     * @return number of edges removed
+     */
+    public <L> int prune(Graph<L> graph) {
+        if (equals(NONE)) return 0;
+        long maxKept = maxBytes == Long.MAX_VALUE ? maxEdges : edgeLimit(graph.memoryStats());
+
+        // First pass: count the edges each row keeps by weight, to find the
+        // weight at which the global budget cuts
+        Map<Integer, long[]> keptByWeight = new HashMap<>();
+        long kept = 0;
+        int[] weights = new int[16];
+        for (L source : graph.vertices()) {
+            Map<L, Integer> row = graph.targets(source);
+            if (weights.length < row.size()) weights = new int[row.size()];
+            int n = candidates(row, weights);
+            int rowKept = Math.min(n, maxTargets);
+            if (maxKept != Long.MAX_VALUE) {
+                for (int i = n - rowKept; i < n; i++) {
+                    keptByWeight.computeIfAbsent(weights[i], w -> new long[1])[0]++;
+                }
+            }
+            kept += rowKept;
+        }
+        int globalCut = 0;
+        long globalTies = 0;
+        if (kept > maxKept) {
+            List<Integer> heaviestFirst = new ArrayList<>(keptByWeight.keySet());
+            heaviestFirst.sort(Collections.reverseOrder());
+            long room = maxKept;
+            for (int weight : heaviestFirst) {
+                long count = keptByWeight.get(weight)[0];
+                if (count >= room) {
+                    globalCut = weight;
+                    globalTies = room;
+                    break;
+                }
+                room -= count;
+            }
+        }
+
+        // Second pass, over the same unchanged graph: keep edges above each
+        // cut-off, and as many at it as the first pass counted
+        List<WeightedEdge<L>> dropped = new ArrayList<>();
+        for (L source : graph.vertices()) {
+            Map<L, Integer> row = graph.targets(source);
+            int n = candidates(row, weights);
+            int rowCut = 0;
+            int rowTies = 0;
+            if (n > maxTargets) {
+                rowCut = maxTargets == 0 ? weights[n - 1] : weights[n - maxTargets];
+                for (int i = n - maxTargets; i < n && weights[i] == rowCut; i++) {
+                    rowTies++;
+                }
+            }
+            for (Map.Entry<L, Integer> edge : row.entrySet()) {
+                int weight = edge.getValue();
+                boolean keep = weight >= minWeight && (weight > rowCut || weight == rowCut && rowTies-- > 0)
+                        && (weight > globalCut || weight == globalCut && globalTies-- > 0);
+                if (!keep) dropped.add(new WeightedEdge<>(source, edge.getKey(), weight));
+            }
+        }
+
+        // Observers may be views, so mutate only after the scan
+        for (WeightedEdge<L> edge : dropped) {
+            graph.set(edge.getSource(), edge.getTarget(), 0);
+        }
+        return dropped.size();
+    }
+
+    // Number of edges kept overall: maxEdges, or fewer if they would not fit
+    // maxBytes at the average edge bytes of stats
+    private long edgeLimit(MemoryStats stats) {
+        if (stats.getTotalBytes() <= maxBytes || stats.getEdgeBytes() == 0) {
+            return maxEdges;
+        }
+        long room = maxBytes - (stats.getTotalBytes() - stats.getEdgeBytes());
+        if (room <= 0) return 0;
+        long fitting = (long) (room / ((double) stats.getEdgeBytes() / stats.getEdgeCount()));
+        return Math.min(maxEdges, fitting);
+    }
+
+    // Copy the weights of row that are at least minWeight into weights, sorted
+    // ascending if there are more than maxTargets of them; return their number
+    private int candidates(Map<?, Integer> row, int[] weights) {
+        int n = 0;
+        for (int weight : row.values()) {
+            if (weight >= minWeight) weights[n++] = weight;
+        }
+        if (n > maxTargets) Arrays.sort(weights, 0, n);
+        return n;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (!(obj instanceof PrunePolicy)) return false;
+        PrunePolicy that = (PrunePolicy) obj;
+        return minWeight == that.minWeight && maxTargets == that.maxTargets && maxEdges == that.maxEdges
+                && maxBytes == that.maxBytes;
+    }
+
+    @Override
+    public int hashCode() {
+        return ((31 * minWeight + maxTargets) * 31 + Long.hashCode(maxEdges)) * 31 + Long.hashCode(maxBytes);
+    }
+
+    @Override
+    public String toString() {
+        return "PrunePolicy(minWeight=" + minWeight + ", maxTargetsPerVertex=" + maxTargets
+                + ", maxEdges=" + maxEdges + ", maxBytes=" + maxBytes + ")";
+    }
+}
@@ -0,0 +1,56 @@
+package graph;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * How a {@link ShardedGraph} reaches its shards. Each method is one request to
+ * one shard, so an implementation may run shards in this process (see
+ * {@link LoopbackTransport}) or forward requests to other nodes.
+ *
+ * <p>A shard owns the vertices assigned to it and stores the outgoing edges of
+ * those vertices. An edge's target may be owned by another shard; the shard
+ * storing the edge keeps only a reference to it.
+ *
+ * <p>Results must not share state with the shard: once a future completes,
+ * later requests must not change what it returned.
+ */
+public interface ShardTransport<L> extends AutoCloseable {
+
+    // Returns the number of shards, at least 1
+    int shardCount();
+
+    // Makes vertex owned by shard; completes with true iff it was not already
+    CompletableFuture<Boolean> add(int shard, L vertex);
+
+    // Sets source -> target in shard if shard owns source; target must have
+    // been added to its own shard. Completes with the previous weight, or
+    // with -1, changing nothing, if shard does not own source
+    CompletableFuture<Integer> set(int shard, L source, L target, int weight);
+
+    // Removes vertex and every edge touching it from shard; completes with
+    // true iff shard owned vertex
+    CompletableFuture<Boolean> remove(int shard, L vertex);
+
+    // Completes with true iff shard owns vertex
+    CompletableFuture<Boolean> contains(int shard, L vertex);
+
+    // Completes with the vertices owned by shard
+    CompletableFuture<Set<L>> vertices(int shard);
+
+    // Completes with the sources, and weights, of edges into target stored in shard
+    CompletableFuture<Map<L, Integer>> sources(int shard, L target);
+
+    // Completes with the targets, and weights, of edges out of source stored in shard
+    CompletableFuture<Map<L, Integer>> targets(int shard, L source);
+
+    // Completes with the memory estimate of shard, counting as vertices only
+    // those it owns; bytes include its references to targets owned elsewhere
+    CompletableFuture<MemoryStats> memoryStats(int shard);
+
+    // Releases resources held by the transport
+    @Override
+    void close();
+
+}
@@ -0,0 +1,205 @@
+package graph;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * A graph whose vertices are partitioned by label hash across shards reached
+ * through a {@link ShardTransport}. Each vertex's outgoing edges live on the
+ * shard that owns it, so add, set and targets each touch one or two shards,
+ * while vertices, sources, remove and memoryStats fan out to every shard in
+ * parallel.
+ *
+ * <p>With a {@link LoopbackTransport}, every shard has its own lock, so this
+ * graph may be used from many threads at once and writes to different shards
+ * proceed in parallel; there is no lock across shards. Each set re-checks its
+ * target with the target's shard after storing the edge, so an edge is never
+ * left pointing to a removed vertex, even through another ShardedGraph over
+ * the same shards. Operations are not atomic across shards: a concurrent
+ * reader may see a removal on some shards before others, and a set racing
+ * with removal of its target may leave the target in place without the edge.
+ */
+public class ShardedGraph<L> implements Graph<L>, AutoCloseable {
+
+    private final ShardTransport<L> transport;
+    private final int shardCount;
+
+    // Abstraction function:
+    //   Represents the graph whose vertices are the union of the vertices
+    //   owned by every shard, and whose edges are the union of every shard's
+    //   edges.
+    // Representation invariant:
+    //   - transport is non-null; shardCount == transport.shardCount() >= 1.
+    //   - Every vertex v is owned by shard(v) only.
+    //   - Every edge s -> t is stored in shard(s) only.
+    // Safety from rep exposure:
+    //   Fields are private and final; observers return unmodifiable copies.
+    // Thread safety argument:
+    //   The only state is on the shards, and each shard request is atomic on
+    //   its own. A shard stores an edge only while it owns the source, and
+    //   remove(v) takes v from shard(v) before scrubbing edges to v from the
+    //   other shards. So if set stored s -> t after the scrub reached that
+    //   shard, shard(t) had already dropped t by the time set re-checks it,
+    //   and set removes the edge itself.
+
+    /**
+     * Create a graph of in-process shards.
+     *
+     * @param shardCount number of shards, at least 1
+     * @param backing creates the empty graph stored by each shard
+     */
+    public ShardedGraph(int shardCount, Supplier<Graph<L>> backing) {
+        this(new LoopbackTransport<>(shardCount, backing));
+    }
+
+    /**
+     * Create a graph over the shards of a transport, which must start empty.
+     *
+     * @param transport reaches the shards
+     */
+    public ShardedGraph(ShardTransport<L> transport) {
+        if (transport == null) throw new IllegalArgumentException("Transport cannot be null");
+        this.transport = transport;
+        this.shardCount = transport.shardCount();
+        checkRep();
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        assert transport != null : "Transport should not be null";
+        assert shardCount >= 1 : "There should be at least one shard";
+    }
+
+    /**
+     * @param vertex a vertex label
+     * @return the shard that owns vertex
+     */
+    int shard(L vertex) {
+        int h = vertex.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), shardCount);
+    }
+
+    /**
+     * @return the number of shards
+     */
+    public int shardCount() {
+        return shardCount;
+    }
+
+    @Override
+    public boolean add(L vertex) {
+        if (vertex == null) throw new IllegalArgumentException("Vertex cannot be null");
+        return join(transport.add(shard(vertex), vertex));
+    }
+
+    @Override
+    public int set(L source, L target, int weight) {
+        if (source == null || target == null) throw new IllegalArgumentException("Vertices cannot be null");
+        if (weight < 0) throw new IllegalArgumentException("Edge weight cannot be negative");
+        int owner = shard(source);
+        int targetOwner = shard(target);
+        int previous;
+        do {
+            // Retried if source is removed before the edge is stored, as if
+            // this set came after the removal
+            CompletableFuture<Boolean> addSource = transport.add(owner, source);
+            CompletableFuture<Boolean> addTarget = transport.add(targetOwner, target);
+            join(CompletableFuture.allOf(addSource, addTarget));
+            previous = join(transport.set(owner, source, target, weight));
+        } while (previous < 0);
+        if (weight > 0 && !join(transport.contains(targetOwner, target))) {
+            // Target was removed after being added; as if this set came first
+            join(transport.set(owner, source, target, 0));
+        }
+        return previous;
+    }
+
+    @Override
+    public boolean remove(L vertex) {
+        // The owner first, so a set that re-checks vertex afterwards finds
+        // it gone whenever its edge escaped the scrub of the other shards
+        int owner = shard(vertex);
+        boolean removed = join(transport.remove(owner, vertex));
+        List<CompletableFuture<Boolean>> scrubs = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            if (i != owner) scrubs.add(transport.remove(i, vertex));
+        }
+        join(CompletableFuture.allOf(scrubs.toArray(new CompletableFuture<?>[0])));
+        return removed;
+    }
+
+    @Override
+    public Set<L> vertices() {
+        List<CompletableFuture<Set<L>>> parts = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            parts.add(transport.vertices(i));
+        }
+        Set<L> vertices = new HashSet<>();
+        for (CompletableFuture<Set<L>> part : parts) {
+            vertices.addAll(join(part));
+        }
+        return Collections.unmodifiableSet(vertices);
+    }
+
+    @Override
+    public Map<L, Integer> sources(L target) {
+        List<CompletableFuture<Map<L, Integer>>> parts = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            parts.add(transport.sources(i, target));
+        }
+        Map<L, Integer> sources = new HashMap<>();
+        for (CompletableFuture<Map<L, Integer>> part : parts) {
+            sources.putAll(join(part));
+        }
+        return Collections.unmodifiableMap(sources);
+    }
+
+    @Override
+    public Map<L, Integer> targets(L source) {
+        return Collections.unmodifiableMap(join(transport.targets(shard(source), source)));
+    }
+
+    @Override
+    public MemoryStats memoryStats() {
+        List<CompletableFuture<MemoryStats>> parts = new ArrayList<>(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            parts.add(transport.memoryStats(i));
+        }
+        MemoryStats total = join(parts.get(0));
+        for (int i = 1; i < shardCount; i++) {
+            total = total.plus(join(parts.get(i)));
+        }
+        return total;
+    }
+
+    /**
+     * Close the transport.
+     */
+    @Override
+    public void close() {
+        transport.close();
+    }
+
+    // Wait for a shard response, rethrowing a shard's runtime exception as is
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ShardedGraph over " + transport;
+    }
+}
@@ -0,0 +1,62 @@
+package graph;
+
+/**
+ * An immutable directed edge with a positive weight, as produced by
+ * {@link Graph#edges()}.
+ */
+public class WeightedEdge<L> {
+
+    private final L source;
+    private final L target;
+    private final int weight;
+
+    // Abstraction function:
+    //   Represents the edge source -> target with weight weight.
+    // Representation invariant:
+    //   source and target are non-null, weight > 0.
+    // Safety from rep exposure:
+    //   All fields are private, final and immutable or labels.
+
+    /**
+     * @param source edge source, non-null
+     * @param target edge target, non-null
+     * @param weight edge weight, positive
+     */
+    public WeightedEdge(L source, L target, int weight) {
+        if (source == null || target == null || weight <= 0) {
+            throw new IllegalArgumentException("Invalid source, target, or weight");
+        }
+        this.source = source;
+        this.target = target;
+        this.weight = weight;
+    }
+
+    public L getSource() {
+        return source;
+    }
+
+    public L getTarget() {
+        return target;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof WeightedEdge)) return false;
+        WeightedEdge<?> that = (WeightedEdge<?>) other;
+        return source.equals(that.source) && target.equals(that.target) && weight == that.weight;
+    }
+
+    @Override
+    public int hashCode() {
+        return (source.hashCode() * 31 + target.hashCode()) * 31 + weight;
+    }
+
+    @Override
+    public String toString() {
+        return source + " -> " + target + " (" + weight + ")";
+    }
+}
@@ -0,0 +1,236 @@
+package poet;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import graph.Graph;
+
+/**
+ * Bounded best-first search for the heaviest bridge of up to k words between
+ * two words of a word affinity graph.
+ */
+class BridgeSearch {
+
+    private final Graph<String> graph;
+    private final int maxLength;
+    private final int nodeBudget;
+    private final int maxEdgeWeight;
+
+    // Idle arenas, so a shared poet can answer concurrent queries without
+    // allocating search state on every call. A pool rather than a ThreadLocal,
+    // since thread-per-request servers would otherwise build one per request.
+    private final Queue<Arena> arenas = new ConcurrentLinkedQueue<>();
+
+    // Abstraction function:
+    //   Represents a search over graph for paths word1 -> b1 -> ... -> bj -> word2
+    //   with 1 <= j <= maxLength, maximizing the sum of edge weights, and giving
+    //   up after nodeBudget search nodes have been generated.
+    // Representation invariant:
+    //   - graph is non-null.
+    //   - maxLength >= 1, nodeBudget >= 1, maxEdgeWeight >= 0.
+    //   - maxEdgeWeight is at least the weight of every edge in graph.
+    // Safety from rep exposure:
+    //   All fields are private and final; results are returned as fresh lists.
+
+    /**
+     * Create a search over the given graph.
+     *
+     * @param graph word affinity graph, must not be modified while searching
+     * @param maxLength maximum number of bridge words, at least 1
+     * @param nodeBudget maximum number of search nodes generated per query, at least 1
+     * @param maxEdgeWeight an upper bound on every edge weight in graph
+     */
+    BridgeSearch(Graph<String> graph, int maxLength, int nodeBudget, int maxEdgeWeight) {
+        if (maxLength < 1) throw new IllegalArgumentException("Bridge length must be at least 1");
+        if (nodeBudget < 1) throw new IllegalArgumentException("Node budget must be at least 1");
+        this.graph = graph;
+        this.maxLength = maxLength;
+        this.nodeBudget = nodeBudget;
+        this.maxEdgeWeight = maxEdgeWeight;
+        checkRep();
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        assert graph != null : "Graph should not be null";
+        assert maxLength >= 1 : "Bridge length should be at least 1";
+        assert nodeBudget >= 1 : "Node budget should be at least 1";
+        assert maxEdgeWeight >= 0 : "Max edge weight should not be negative";
+    }
+
+    /**
+     * Find the heaviest bridge between two words.
+     *
+     * @param word1 the first word
+     * @param word2 the second word
+     * @return the bridge words in order, or an empty list if no bridge was
+     *         found within the node budget
+     */
+    List<String> find(String word1, String word2) {
+        Arena arena = arenas.poll();
+        if (arena == null) arena = new Arena(nodeBudget);
+        try {
+            return find(arena, word1, word2);
+        } finally {
+            arena.reset();
+            arenas.offer(arena);
+        }
+    }
+
+    private List<String> find(Arena arena, String word1, String word2) {
+        int bestNode = -1;
+        int bestWeight = 0;
+
+        arena.push(arena.node(-1, word1, 0, 0), upperBound(0, 0));
+
+        while (!arena.isEmpty()) {
+            int bound = arena.peekBound();
+            if (bound <= bestWeight) break; // nothing left in the queue can win
+            int node = arena.pop();
+
+            String word = arena.words[node];
+            int weight = arena.weights[node];
+            int depth = arena.depths[node];
+
+            Map<String, Integer> targets = graph.targets(word);
+
+            // Close the path here if this node is a bridge word
+            if (depth > 0) {
+                Integer last = targets.get(word2);
+                int total = last == null ? 0 : saturatedSum(weight, last);
+                if (total > bestWeight) {
+                    bestWeight = total;
+                    bestNode = node;
+                }
+            }
+
+            if (depth == maxLength) continue;
+
+            for (Map.Entry<String, Integer> entry : targets.entrySet()) {
+                String next = entry.getKey();
+                if (depth > 0 && arena.onPath(node, next)) continue;
+                int nextWeight = saturatedSum(weight, entry.getValue());
+                int nextBound = upperBound(nextWeight, depth + 1);
+                if (nextBound <= bestWeight) continue;
+                if (arena.isFull()) return bridge(arena, bestNode);
+                arena.push(arena.node(node, next, nextWeight, depth + 1), nextBound);
+            }
+        }
+        return bridge(arena, bestNode);
+    }
+
+    // Sum of two non-negative weights, saturating at Integer.MAX_VALUE
+    private static int saturatedSum(int weight1, int weight2) {
+        return (int) Math.min(Integer.MAX_VALUE, (long) weight1 + weight2);
+    }
+
+    // Best total weight reachable from a node at the given depth: every
+    // remaining bridge word and the closing edge contribute at most maxEdgeWeight.
+    private int upperBound(int weight, int depth) {
+        long bound = (long) weight + (long) (maxLength - depth + 1) * maxEdgeWeight;
+        return (int) Math.min(Integer.MAX_VALUE, bound);
+    }
+
+    private static List<String> bridge(Arena arena, int node) {
+        if (node < 0) return Collections.emptyList();
+        List<String> words = new ArrayList<>();
+        for (int n = node; arena.parents[n] >= 0; n = arena.parents[n]) {
+            words.add(arena.words[n]);
+        }
+        Collections.reverse(words);
+        return words;
+    }
+
+    /**
+     * Preallocated search nodes and a max-heap of node indices keyed by upper
+     * bound, reused across queries.
+     */
+    private static class Arena {
+        private final int[] parents;
+        private final String[] words;
+        private final int[] weights;
+        private final int[] depths;
+        private final int[] heap;
+        private final int[] bounds;
+        private int size;
+        private int heapSize;
+
+        Arena(int capacity) {
+            parents = new int[capacity];
+            words = new String[capacity];
+            weights = new int[capacity];
+            depths = new int[capacity];
+            heap = new int[capacity];
+            bounds = new int[capacity];
+        }
+
+        void reset() {
+            // Drop references from the previous query so words can be collected
+            Arrays.fill(words, 0, size, null);
+            size = 0;
+            heapSize = 0;
+        }
+
+        boolean isFull() {
+            return size == parents.length;
+        }
+
+        boolean isEmpty() {
+            return heapSize == 0;
+        }
+
+        int node(int parent, String word, int weight, int depth) {
+            int n = size++;
+            parents[n] = parent;
+            words[n] = word;
+            weights[n] = weight;
+            depths[n] = depth;
+            return n;
+        }
+
+        boolean onPath(int node, String word) {
+            for (int n = node; parents[n] >= 0; n = parents[n]) {
+                if (words[n].equals(word)) return true;
+            }
+            return false;
+        }
+
+        int peekBound() {
+            return bounds[heap[0]];
+        }
+
+        void push(int node, int bound) {
+            bounds[node] = bound;
+            int i = heapSize++;
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (bounds[heap[parent]] >= bound) break;
+                heap[i] = heap[parent];
+                i = parent;
+            }
+            heap[i] = node;
+        }
+
+        int pop() {
+            int top = heap[0];
+            int last = heap[--heapSize];
+            int bound = bounds[last];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= heapSize) break;
+                if (child + 1 < heapSize && bounds[heap[child + 1]] > bounds[heap[child]]) child++;
+                if (bounds[heap[child]] <= bound) break;
+                heap[i] = heap[child];
+                i = child;
+            }
+            heap[i] = last;
+            return top;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package poet;
+
+/**
+ * A count-min sketch: approximate counts of many keys in fixed memory. An
+ * estimate is never below the true count, and exceeds it only when keys
+ * collide in every row. Updates are conservative (only the minimal counters
+ * grow), which tightens estimates, and counters saturate at Integer.MAX_VALUE.
+ */
+class CountMinSketch {
+
+    private static final int DEPTH = 4;
+
+    /** Fewest counters per row. */
+    private static final int MIN_WIDTH = 1024;
+
+    /** Smallest memory budget, in bytes: MIN_WIDTH counters in each row. */
+    static final long MIN_BYTES = 4L * DEPTH * MIN_WIDTH;
+
+    private final int[] counters;
+    private final int mask;
+
+    // Abstraction function:
+    //   Represents the counts of keys added, estimated for key k as the minimum
+    //   over rows r of counters[r * width + index(k, r)], width = mask + 1.
+    // Representation invariant:
+    //   - width is a power of two; counters.length == DEPTH * width.
+    //   - every counter is non-negative.
+    // Safety from rep exposure:
+    //   All fields are private and final and never returned.
+
+    /**
+     * @param expectedKeys number of distinct keys expected; the sketch is sized
+     *                     to keep estimates close for about this many
+     * @param maxBytes largest memory the counters may take, at least MIN_BYTES;
+     *                 fewer counters than expectedKeys calls for make early
+     *                 admissions more likely but never change memory use
+     */
+    CountMinSketch(int expectedKeys, long maxBytes) {
+        if (expectedKeys < 0) throw new IllegalArgumentException("Expected keys cannot be negative");
+        if (maxBytes < MIN_BYTES) throw new IllegalArgumentException("Sketch needs at least " + MIN_BYTES + " bytes");
+        int wanted = Integer.highestOneBit(Math.max(MIN_WIDTH, Math.min(expectedKeys, 1 << 24)) * 2 - 1);
+        long affordable = Long.highestOneBit(maxBytes / (4L * DEPTH));
+        int width = (int) Math.min(wanted, affordable);
+        this.counters = new int[DEPTH * width];
+        this.mask = width - 1;
+        checkRep();
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        assert Integer.bitCount(mask + 1) == 1;
+        assert counters.length == DEPTH * (mask + 1);
+    }
+
+    /**
+     * Count one more occurrence of key.
+     *
+     * @param key hash of the key
+     * @return estimated count of key, including this occurrence
+     */
+    int add(long key) {
+        long h = mix(key);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counters[slot(h, row)]);
+        }
+        if (estimate == Integer.MAX_VALUE) return estimate;
+        estimate++;
+        for (int row = 0; row < DEPTH; row++) {
+            int slot = slot(h, row);
+            if (counters[slot] < estimate) counters[slot] = estimate;
+        }
+        return estimate;
+    }
+
+    private static long mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        h *= 0xD6E8FEB86659FD93L;
+        return h ^ (h >>> 29);
+    }
+
+    // Counter index in row, by double hashing on the two halves of h
+    private int slot(long h, int row) {
+        int index = (int) h + row * ((int) (h >>> 32) | 1);
+        return row * (mask + 1) + (index & mask);
+    }
+
+    @Override
+    public String toString() {
+        return "CountMinSketch " + DEPTH + " x " + (mask + 1);
+    }
+}
@@ -3,24 +3,38 @@ package poet;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
-import java.util.HashMap;
+import java.util.ArrayList;
 import java.util.List;
 
-import graph.Graph;
+import graph.AdaptiveGraph;
+import graph.MemoryStats;
+import graph.PrunePolicy;
 
 /**
  * A graph-based poetry generator.
  */
 public class GraphPoet {
 
-    private final Graph<String> graph = Graph.empty();
+    /** Default number of search nodes a multi-word bridge query may generate. */
+    public static final int DEFAULT_NODE_BUDGET = 4096;
+
+    /** Default memory, in bytes, of the sketch counting pairs for minPairCount. */
+    public static final long DEFAULT_SKETCH_BYTES = 8L << 20;
+
+    private final AdaptiveGraph<String> graph = new AdaptiveGraph<>();
+    private final int maxBridgeLength;
+    private final BridgeSearch search;
+    private final NGramModel ngrams;
 
     // Abstraction function:
     //   Represents a word affinity graph where vertices are words (case-insensitive)
-    //   and edges represent adjacency with weights as the count of occurrences.
+    //   and edges represent adjacency with weights as the count of occurrences,
+    //   saturating at Integer.MAX_VALUE.
     // Representation invariant:
     //   - All vertices and edges in the graph are non-null.
     //   - Edge weights are strictly greater than 0.
+    //   - maxBridgeLength >= 1; search is non-null iff maxBridgeLength > 1.
+    //   - ngrams is null, or has order > 2 and then maxBridgeLength == 1.
     // Safety from rep exposure:
     //   The graph is private and final. No direct references are exposed.
 
@@ -31,19 +45,201 @@ public class GraphPoet {
      * @throws IOException if the corpus file cannot be found or read
      */
     public GraphPoet(File corpus) throws IOException {
-        List<String> lines = Files.readAllLines(corpus.toPath());
+        this(corpus, 1);
+    }
+
+    /**
+     * Create a new poet that inserts bridges of up to maxBridgeLength words.
+     *
+     * @param corpus text file from which to derive the poet's affinity graph
+     * @param maxBridgeLength maximum number of words inserted between two input words, at least 1
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public GraphPoet(File corpus, int maxBridgeLength) throws IOException {
+        this(corpus, maxBridgeLength, DEFAULT_NODE_BUDGET);
+    }
+
+    /**
+     * Create a new poet that inserts bridges of up to maxBridgeLength words,
+     * bounding the work done for each pair of input words.
+     *
+     * @param corpus text file from which to derive the poet's affinity graph
+     * @param maxBridgeLength maximum number of words inserted between two input words, at least 1
+     * @param nodeBudget maximum number of search nodes generated per bridge query, at least 1;
+     *                   when exhausted, the heaviest bridge found so far is used
+     * @throws IOException if the corpus file cannot be found or read
+     */
+    public GraphPoet(File corpus, int maxBridgeLength, int nodeBudget) throws IOException {
+        this(builder(corpus).maxBridgeLength(maxBridgeLength).nodeBudget(nodeBudget));
+    }
+
+    /**
+     * Start configuring a poet.
+     *
+     * @param corpus text file from which to derive the poet's affinity graph
+     * @return a builder with default settings: one-word bridges, order 2
+     */
+    public static Builder builder(File corpus) {
+        return new Builder(corpus);
+    }
+
+    /**
+     * Settings for a new GraphPoet.
+     */
+    public static class Builder {
+        private final File corpus;
+        private int maxBridgeLength = 1;
+        private int nodeBudget = DEFAULT_NODE_BUDGET;
+        private int order = 2;
+        private int minPairCount = 1;
+        private long sketchBytes = DEFAULT_SKETCH_BYTES;
+        private PrunePolicy prune = PrunePolicy.none();
+
+        private Builder(File corpus) {
+            if (corpus == null) throw new IllegalArgumentException("Corpus cannot be null");
+            this.corpus = corpus;
+        }
+
+        /**
+         * @param maxBridgeLength maximum number of words inserted between two input words, at least 1
+         * @return this builder
+         */
+        public Builder maxBridgeLength(int maxBridgeLength) {
+            if (maxBridgeLength < 1) throw new IllegalArgumentException("Bridge length must be at least 1");
+            this.maxBridgeLength = maxBridgeLength;
+            return this;
+        }
+
+        /**
+         * @param nodeBudget maximum number of search nodes generated per bridge query, at least 1;
+         *                   when exhausted, the heaviest bridge found so far is used
+         * @return this builder
+         */
+        public Builder nodeBudget(int nodeBudget) {
+            if (nodeBudget < 1) throw new IllegalArgumentException("Node budget must be at least 1");
+            this.nodeBudget = nodeBudget;
+            return this;
+        }
+
+        /**
+         * Choose bridge words by the previous order-1 words rather than only the
+         * previous word. Where the poem so far has too few known words for a
+         * full context, or no n-gram connects it to the next word, bridges fall
+         * back to the word-pair graph. Orders above 2 insert one-word bridges.
+         *
+         * @param order n-gram order, from 2 (word pairs) to {@value NGramModel#MAX_ORDER}
+         * @return this builder
+         */
+        public Builder order(int order) {
+            if (order < 2 || order > NGramModel.MAX_ORDER) {
+                throw new IllegalArgumentException("Order must be between 2 and " + NGramModel.MAX_ORDER);
+            }
+            this.order = order;
+            return this;
+        }
+
+        /**
+         * Count word pairs in a fixed-size sketch (see {@link #sketchBytes})
+         * until they have been seen minPairCount times, so that rarer pairs
+         * never become edges. For orders above 2, n-grams are admitted to the
+         * n-gram model the same way. Counts are estimates: a pair may
+         * occasionally be admitted early, never late.
+         *
+         * @param minPairCount occurrences needed before a pair or n-gram becomes an edge, at least 1
+         * @return this builder
+         */
+        public Builder minPairCount(int minPairCount) {
+            if (minPairCount < 1) throw new IllegalArgumentException("Minimum pair count must be at least 1");
+            this.minPairCount = minPairCount;
+            return this;
+        }
+
+        /**
+         * Bound the memory of the sketch used by {@link #minPairCount}. It is
+         * allocated only while reading the corpus, once for word pairs and
+         * then once for n-grams, and smaller for corpora too short to need it
+         * all; a smaller sketch admits more rare pairs early.
+         *
+         * @param sketchBytes largest size of the sketch in bytes, at least 16384
+         * @return this builder
+         */
+        public Builder sketchBytes(long sketchBytes) {
+            if (sketchBytes < CountMinSketch.MIN_BYTES) {
+                throw new IllegalArgumentException("Sketch needs at least " + CountMinSketch.MIN_BYTES + " bytes");
+            }
+            this.sketchBytes = sketchBytes;
+            return this;
+        }
+
+        /**
+         * Prune the word-pair graph after reading the corpus, then compact it.
+         * For orders above 2, the n-gram model is pruned by the same policy
+         * on its own, so a byte budget bounds each model separately.
+         *
+         * @param policy edges to drop
+         * @return this builder
+         */
+        public Builder prune(PrunePolicy policy) {
+            if (policy == null) throw new IllegalArgumentException("Policy cannot be null");
+            this.prune = policy;
+            return this;
+        }
+
+        /**
+         * Read the corpus and build the poet.
+         *
+         * @return the new poet
+         * @throws IOException if the corpus file cannot be found or read
+         */
+        public GraphPoet build() throws IOException {
+            if (order > 2 && maxBridgeLength > 1) {
+                throw new IllegalArgumentException("Multi-word bridges require order 2");
+            }
+            return new GraphPoet(this);
+        }
+    }
+
+    private GraphPoet(Builder settings) throws IOException {
+        this.maxBridgeLength = settings.maxBridgeLength;
+
+        List<String> lines = Files.readAllLines(settings.corpus.toPath());
         String text = String.join(" ", lines); // Read all lines as a single text block
         String[] words = text.toLowerCase().split("\\s+"); // Split text into words by whitespace
+        int maxWeight = 0;
+        CountMinSketch rare = settings.minPairCount > 1 ? new CountMinSketch(words.length, settings.sketchBytes) : null;
 
         for (int i = 0; i < words.length - 1; i++) {
             String word1 = words[i];
             String word2 = words[i + 1];
 
+            // Count pairs without an edge in the sketch until they are frequent enough
+            if (rare != null && !graph.targets(word1).containsKey(word2)) {
+                int seen = rare.add(pairKey(word1, word2));
+                if (seen >= settings.minPairCount) {
+                    graph.set(word1, word2, seen);
+                    maxWeight = Math.max(maxWeight, seen);
+                }
+                continue;
+            }
+
             // Update edge weight or create a new edge
-            int weight = graph.targets(word1).getOrDefault(word2, 0);
-            graph.set(word1, word2, weight + 1);
+            int weight = graph.increment(word1, word2, 1);
+            maxWeight = Math.max(maxWeight, weight == Integer.MAX_VALUE ? weight : weight + 1);
         }
+        rare = null; // the n-gram model counts in a sketch of its own
+        if (settings.prune.prune(graph) > 0) graph.compact();
+
+        this.search = maxBridgeLength > 1
+                ? new BridgeSearch(graph, maxBridgeLength, settings.nodeBudget, maxWeight)
+                : null;
 
+        if (settings.order > 2) {
+            this.ngrams = new NGramModel(settings.order);
+            ngrams.ingest(words, settings.minPairCount, settings.sketchBytes);
+            ngrams.prune(settings.prune);
+        } else {
+            this.ngrams = null;
+        }
         checkRep();
     }
 
@@ -56,6 +252,7 @@ public class GraphPoet {
     public String poem(String input) {
         String[] words = input.split("\\s+"); // Split input into words
         StringBuilder poem = new StringBuilder();
+        List<String> context = ngrams == null ? null : new ArrayList<>();
 
         for (int i = 0; i < words.length - 1; i++) {
             String word1 = words[i].toLowerCase();
@@ -65,9 +262,23 @@ public class GraphPoet {
             poem.append(words[i]).append(" ");
 
             // Find and add a bridge word (if any)
-            String bridge = findBridge(word1, word2);
-            if (bridge != null) {
-                poem.append(bridge).append(" ");
+            if (ngrams != null) {
+                remember(context, word1);
+                String bridge = context.size() == ngrams.order() - 1 ? ngrams.bridge(context, word2) : null;
+                if (bridge == null) bridge = findBridge(word1, word2);
+                if (bridge != null) {
+                    poem.append(bridge).append(" ");
+                    remember(context, bridge);
+                }
+            } else if (search == null) {
+                String bridge = findBridge(word1, word2);
+                if (bridge != null) {
+                    poem.append(bridge).append(" ");
+                }
+            } else {
+                for (String bridge : search.find(word1, word2)) {
+                    poem.append(bridge).append(" ");
+                }
             }
         }
 
@@ -76,6 +287,30 @@ public class GraphPoet {
         return poem.toString();
     }
 
+    /**
+     * Estimate the memory held by this poet's models, without walking them:
+     * the word-pair graph plus, for orders above 2, the n-gram model. Useful
+     * for sizing heaps and for deciding when a smaller minPairCount or a
+     * {@link PrunePolicy} is needed.
+     *
+     * @return estimated memory and out-degree summary
+     */
+    public MemoryStats memoryStats() {
+        MemoryStats stats = graph.memoryStats();
+        return ngrams == null ? stats : stats.plus(ngrams.memoryStats());
+    }
+
+    // Hash of a word pair for the pre-filter sketch
+    private static long pairKey(String word1, String word2) {
+        return ((long) word1.hashCode() << 32) ^ (word2.hashCode() & 0xFFFFFFFFL);
+    }
+
+    // Append a word to the n-gram context, keeping only the last order-1 words
+    private void remember(List<String> context, String word) {
+        context.add(word);
+        if (context.size() >= ngrams.order()) context.remove(0);
+    }
+
     /**
      * Find a bridge word between two words if a valid two-edge-long path exists.
      *
@@ -85,12 +320,12 @@ public class GraphPoet {
      */
     private String findBridge(String word1, String word2) {
         String bridge = null;
-        int maxWeight = 0;
+        long maxWeight = 0;
 
-        // Check all possible bridge words
+        // Check all possible bridge words; weights may saturate, so sum as long
         for (String candidate : graph.targets(word1).keySet()) {
             if (graph.targets(candidate).containsKey(word2)) {
-                int weight = graph.targets(word1).get(candidate) + graph.targets(candidate).get(word2);
+                long weight = (long) graph.targets(word1).get(candidate) + graph.targets(candidate).get(word2);
                 if (weight > maxWeight) {
                     maxWeight = weight;
                     bridge = candidate;
@@ -102,6 +337,9 @@ public class GraphPoet {
 
     // Check representation invariant
     private void checkRep() {
+        assert maxBridgeLength >= 1;
+        assert (search != null) == (maxBridgeLength > 1);
+        assert ngrams == null || (ngrams.order() > 2 && maxBridgeLength == 1);
         for (String vertex : graph.vertices()) {
             assert vertex != null;
             for (String target : graph.targets(vertex).keySet()) {
@@ -0,0 +1,231 @@
+package poet;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import graph.MemoryStats;
+
+/**
+ * A GraphPoet whose corpus is read off the calling thread, so that creating
+ * one costs the same whatever the size of the corpus.
+ *
+ * <p>Until the model is ready, {@link #poem(String)} returns its input
+ * unchanged; {@link #poem(String, long, TimeUnit)} waits up to a timeout
+ * first. Once loaded, both behave exactly like {@link GraphPoet#poem(String)}.
+ * If loading fails, poems throw IllegalStateException with the failure as
+ * the cause.
+ *
+ * <p>Instances are safe for use by multiple threads.
+ */
+public class LazyGraphPoet {
+
+    private final GraphPoet.Builder settings;
+    private final List<String> warmUp;
+    private final Executor executor;
+    private final AtomicBoolean started = new AtomicBoolean();
+    private final CompletableFuture<GraphPoet> model = new CompletableFuture<>();
+
+    // Abstraction function:
+    //   Represents the poet settings.build() warmed up on warmUp, available
+    //   once model completes normally; before that, the poet that echoes its
+    //   input.
+    // Representation invariant:
+    //   - warmUp and executor are non-null; settings is null only for a poet
+    //     supplied already loaded.
+    //   - model is done only if started is true.
+    // Safety from rep exposure:
+    //   All fields are private and final; warmUp is an unmodifiable copy.
+    //   settings is the caller's builder and is only read when loading starts.
+    // Thread safety argument:
+    //   started ensures a single load; model is a CompletableFuture, which
+    //   publishes the built poet safely to every reader. GraphPoet is only
+    //   read after construction.
+
+    private LazyGraphPoet(GraphPoet.Builder settings, Executor executor, String... warmUp) {
+        if (executor == null) throw new IllegalArgumentException("Executor cannot be null");
+        if (warmUp == null) throw new IllegalArgumentException("Warm-up inputs cannot be null");
+        for (String input : warmUp) {
+            if (input == null) throw new IllegalArgumentException("Warm-up input cannot be null");
+        }
+        this.settings = settings;
+        this.executor = executor;
+        this.warmUp = Arrays.asList(warmUp.clone());
+    }
+
+    /**
+     * Start loading a poet on a new daemon thread and return at once.
+     *
+     * @param settings poet settings; must not be modified afterwards
+     * @param warmUp inputs to generate poems for before reporting ready, so the
+     *               first real requests run on warm caches and compiled code
+     * @return the loading poet
+     */
+    public static LazyGraphPoet inBackground(GraphPoet.Builder settings, String... warmUp) {
+        return inBackground(settings, LazyGraphPoet::daemon, warmUp);
+    }
+
+    /**
+     * Start loading a poet on the given executor and return at once.
+     *
+     * @param settings poet settings; must not be modified afterwards
+     * @param executor runs the load
+     * @param warmUp inputs to generate poems for before reporting ready
+     * @return the loading poet
+     */
+    public static LazyGraphPoet inBackground(GraphPoet.Builder settings, Executor executor, String... warmUp) {
+        if (settings == null) throw new IllegalArgumentException("Settings cannot be null");
+        LazyGraphPoet poet = new LazyGraphPoet(settings, executor, warmUp);
+        poet.start();
+        return poet;
+    }
+
+    /**
+     * Create a poet that starts loading, on a new daemon thread, the first
+     * time a poem is requested or readiness is awaited.
+     *
+     * @param settings poet settings; must not be modified afterwards
+     * @param warmUp inputs to generate poems for before reporting ready
+     * @return the unloaded poet
+     */
+    public static LazyGraphPoet onFirstUse(GraphPoet.Builder settings, String... warmUp) {
+        if (settings == null) throw new IllegalArgumentException("Settings cannot be null");
+        return new LazyGraphPoet(settings, LazyGraphPoet::daemon, warmUp);
+    }
+
+    /**
+     * Wrap a poet that is already loaded.
+     *
+     * @param poet loaded poet
+     * @return a ready poet delegating to poet
+     */
+    public static LazyGraphPoet of(GraphPoet poet) {
+        if (poet == null) throw new IllegalArgumentException("Poet cannot be null");
+        LazyGraphPoet ready = new LazyGraphPoet(null, Runnable::run);
+        ready.started.set(true);
+        ready.model.complete(poet);
+        return ready;
+    }
+
+    private static void daemon(Runnable task) {
+        Thread thread = new Thread(task, "GraphPoet loader");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Begin loading, once
+    private void start() {
+        if (!started.compareAndSet(false, true)) return;
+        executor.execute(() -> {
+            try {
+                GraphPoet poet = settings.build();
+                for (String input : warmUp) {
+                    poet.poem(input);
+                }
+                model.complete(poet);
+            } catch (Throwable e) {
+                model.completeExceptionally(e);
+            }
+        });
+    }
+
+    /**
+     * @return true iff the model has loaded and poems use it
+     */
+    public boolean isReady() {
+        return model.isDone() && !model.isCompletedExceptionally();
+    }
+
+    /**
+     * @return true iff loading has finished, successfully or not
+     */
+    public boolean isDone() {
+        return model.isDone();
+    }
+
+    /**
+     * Wait until the model is ready, starting the load if it has not started.
+     *
+     * @param timeout maximum time to wait
+     * @param unit unit of timeout
+     * @return true iff the model is ready; false if the timeout elapsed first
+     * @throws IOException if the corpus could not be read
+     * @throws IllegalStateException if loading failed for another reason
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean awaitReady(long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        return loaded(timeout, unit) != null;
+    }
+
+    /**
+     * Generate a poem if the model is ready, starting the load if it has not
+     * started.
+     *
+     * @param input string from which to create the poem
+     * @return the poem, or input unchanged if the model is not yet ready
+     * @throws IllegalStateException if loading failed
+     */
+    public String poem(String input) {
+        return poem(input, 0, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Generate a poem, waiting up to a timeout for the model to be ready.
+     *
+     * @param input string from which to create the poem
+     * @param timeout maximum time to wait for the model
+     * @param unit unit of timeout
+     * @return the poem, or input unchanged if the model was not ready in time
+     * @throws IllegalStateException if loading failed
+     */
+    public String poem(String input, long timeout, TimeUnit unit) {
+        GraphPoet poet;
+        try {
+            poet = loaded(timeout, unit);
+        } catch (IOException e) {
+            throw new IllegalStateException("Poet failed to load", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            poet = null;
+        }
+        return poet == null ? input : poet.poem(input);
+    }
+
+    /**
+     * @return the loaded poet's memory estimate, or an empty one while the
+     *         model is not ready
+     */
+    public MemoryStats memoryStats() {
+        return isReady() ? model.getNow(null).memoryStats() : new MemoryStats(0, 0, 0, 0, 0, 0, new long[0]);
+    }
+
+    // The loaded poet, or null if not loaded within the timeout
+    private GraphPoet loaded(long timeout, TimeUnit unit) throws IOException, InterruptedException {
+        start();
+        try {
+            if (model.isDone() || timeout <= 0) return model.getNow(null);
+            return model.get(timeout, unit);
+        } catch (TimeoutException e) {
+            return null;
+        } catch (ExecutionException | CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+            throw new IllegalStateException("Poet failed to load", cause);
+        }
+    }
+
+    @Override
+    public String toString() {
+        if (isReady()) return model.getNow(null).toString();
+        return "LazyGraphPoet (" + (isDone() ? "failed" : started.get() ? "loading" : "not started") + ")";
+    }
+}
@@ -0,0 +1,289 @@
+package poet;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A load generator for {@link PoemServer}, sending poem requests from a fixed
+ * number of workers for a fixed duration.
+ *
+ * <p>Closed loop (the constructor), each worker sends its next request as soon
+ * as the previous one is answered. This finds peak throughput, but a slow
+ * server also slows the load, so latencies under saturation look better than
+ * clients would see. Open loop ({@link #atRate}), requests are scheduled at a
+ * fixed rate whatever the server does, and each latency is measured from the
+ * request's scheduled send time, so time spent waiting for a free worker
+ * counts as queueing delay. Use it for percentiles at a planned load.
+ */
+public class LoadGenerator {
+
+    private final URL target;
+    private final int concurrency;
+    private final long durationNanos;
+    private final long intervalNanos;
+    private final List<String> inputs;
+
+    // Abstraction function:
+    //   Represents a load test of concurrency workers posting inputs, round
+    //   robin, to target for durationNanos: back to back if intervalNanos is
+    //   0, otherwise one request scheduled every intervalNanos.
+    // Representation invariant:
+    //   - target is non-null, concurrency >= 1, durationNanos > 0.
+    //   - intervalNanos >= 0.
+    //   - inputs is non-empty and contains no nulls.
+    // Safety from rep exposure:
+    //   All fields are private and final; inputs is an unmodifiable copy.
+
+    /**
+     * Create a closed-loop load generator.
+     *
+     * @param target URL of a poem endpoint, e.g. http://localhost:8080/poem
+     * @param concurrency number of concurrent workers, at least 1
+     * @param duration how long to send requests, positive
+     * @param unit unit of duration
+     * @param inputs request bodies, used round robin; non-empty
+     */
+    public LoadGenerator(URL target, int concurrency, long duration, TimeUnit unit, List<String> inputs) {
+        this(target, concurrency, duration, unit, inputs, 0);
+    }
+
+    /**
+     * Create an open-loop load generator, which schedules requests at a fixed
+     * rate and measures each latency from its scheduled send time.
+     *
+     * @param target URL of a poem endpoint, e.g. http://localhost:8080/poem
+     * @param requestsPerSecond rate at which requests are scheduled, positive
+     *                          and at most one per nanosecond
+     * @param concurrency maximum number of requests in flight, at least 1;
+     *                    scheduled requests wait for a free worker
+     * @param duration how long to schedule requests, positive
+     * @param unit unit of duration
+     * @param inputs request bodies, used round robin; non-empty
+     * @return the load generator
+     */
+    public static LoadGenerator atRate(URL target, double requestsPerSecond, int concurrency,
+            long duration, TimeUnit unit, List<String> inputs) {
+        if (!(requestsPerSecond > 0 && requestsPerSecond <= 1e9)) {
+            throw new IllegalArgumentException("Rate must be positive and at most one per nanosecond");
+        }
+        return new LoadGenerator(target, concurrency, duration, unit, inputs, Math.round(1e9 / requestsPerSecond));
+    }
+
+    private LoadGenerator(URL target, int concurrency, long duration, TimeUnit unit, List<String> inputs,
+            long intervalNanos) {
+        if (target == null) throw new IllegalArgumentException("Target cannot be null");
+        if (concurrency < 1) throw new IllegalArgumentException("Concurrency must be at least 1");
+        if (duration <= 0) throw new IllegalArgumentException("Duration must be positive");
+        if (inputs == null || inputs.isEmpty()) throw new IllegalArgumentException("Inputs cannot be empty");
+        this.target = target;
+        this.concurrency = concurrency;
+        this.durationNanos = unit.toNanos(duration);
+        this.intervalNanos = intervalNanos;
+        this.inputs = Collections.unmodifiableList(new ArrayList<>(inputs));
+        checkRep();
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        assert target != null;
+        assert concurrency >= 1;
+        assert durationNanos > 0;
+        assert intervalNanos >= 0;
+        assert !inputs.isEmpty();
+        for (String input : inputs) assert input != null;
+    }
+
+    /**
+     * Run the load test, blocking until it finishes.
+     *
+     * @return throughput and latency summary
+     * @throws InterruptedException if interrupted while waiting for workers
+     */
+    public Report run() throws InterruptedException {
+        Worker[] workers = new Worker[concurrency];
+        Thread[] threads = new Thread[concurrency];
+        long start = System.nanoTime();
+        long deadline = start + durationNanos;
+        AtomicLong schedule = new AtomicLong();
+        for (int i = 0; i < concurrency; i++) {
+            workers[i] = new Worker(i, start, deadline, schedule);
+            threads[i] = new Thread(workers[i], "load-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+
+        int total = 0;
+        for (Worker worker : workers) total += worker.count;
+        long[] latencies = new long[total];
+        int offset = 0;
+        long rejected = 0;
+        long errors = 0;
+        for (Worker worker : workers) {
+            System.arraycopy(worker.latencies, 0, latencies, offset, worker.count);
+            offset += worker.count;
+            rejected += worker.rejected;
+            errors += worker.errors;
+        }
+        Arrays.sort(latencies);
+        return new Report(latencies, rejected, errors, elapsed);
+    }
+
+    /**
+     * Send one request.
+     *
+     * @return the HTTP status, or -1 on a connection failure
+     */
+    private int send(String input) {
+        try {
+            HttpURLConnection connection = (HttpURLConnection) target.openConnection();
+            byte[] body = input.getBytes(StandardCharsets.UTF_8);
+            connection.setRequestMethod("POST");
+            connection.setDoOutput(true);
+            connection.setFixedLengthStreamingMode(body.length);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body);
+            }
+            int status = connection.getResponseCode();
+            // Drain the response so the keep-alive connection can be reused
+            InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            if (in != null) {
+                try (InputStream stream = in) {
+                    drain(stream);
+                }
+            }
+            return status;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private static void drain(InputStream in) throws IOException {
+        byte[] buffer = new byte[1024];
+        while (in.read(buffer) != -1) {
+            // discard
+        }
+    }
+
+    private class Worker implements Runnable {
+        private final int id;
+        private final long start;
+        private final long deadline;
+        private final AtomicLong schedule;
+        private long[] latencies = new long[1024];
+        private int count;
+        private long rejected;
+        private long errors;
+
+        Worker(int id, long start, long deadline, AtomicLong schedule) {
+            this.id = id;
+            this.start = start;
+            this.deadline = deadline;
+            this.schedule = schedule;
+        }
+
+        @Override
+        public void run() {
+            int next = id;
+            while (true) {
+                long sendAt;
+                if (intervalNanos == 0) {
+                    sendAt = System.nanoTime();
+                } else {
+                    // Take the next slot of the shared schedule; if every worker
+                    // was busy when it came due, the wait counts as latency
+                    long slot = schedule.getAndIncrement();
+                    sendAt = start + slot * intervalNanos;
+                    if (slot > durationNanos / intervalNanos) break;
+                    for (long wait; (wait = sendAt - System.nanoTime()) > 0; ) {
+                        LockSupport.parkNanos(wait);
+                    }
+                }
+                if (sendAt - deadline >= 0) break;
+                int status = send(inputs.get(next++ % inputs.size()));
+                long latency = System.nanoTime() - sendAt;
+                if (status == 200) {
+                    if (count == latencies.length) latencies = Arrays.copyOf(latencies, count * 2);
+                    latencies[count++] = latency;
+                } else if (status == 503) {
+                    rejected++;
+                } else {
+                    errors++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Immutable summary of a load test. Latencies cover successful requests
+     * only; in open-loop tests they include time waiting for a free worker.
+     */
+    public static class Report {
+        private final long[] sortedLatencies;
+        private final long rejected;
+        private final long errors;
+        private final long elapsedNanos;
+
+        Report(long[] sortedLatencies, long rejected, long errors, long elapsedNanos) {
+            this.sortedLatencies = sortedLatencies;
+            this.rejected = rejected;
+            this.errors = errors;
+            this.elapsedNanos = elapsedNanos;
+        }
+
+        /** @return number of requests answered with 200 */
+        public long successes() {
+            return sortedLatencies.length;
+        }
+
+        /** @return number of requests rejected with 503 by backpressure */
+        public long rejected() {
+            return rejected;
+        }
+
+        /** @return number of requests that failed for any other reason */
+        public long errors() {
+            return errors;
+        }
+
+        /** @return successful requests per second */
+        public double throughput() {
+            return sortedLatencies.length / (elapsedNanos / 1e9);
+        }
+
+        /**
+         * @param quantile between 0 and 1 inclusive
+         * @return latency in nanoseconds at the given quantile, or 0 if no request succeeded
+         */
+        public long latencyNanos(double quantile) {
+            if (quantile < 0 || quantile > 1) throw new IllegalArgumentException("Quantile must be in [0, 1]");
+            if (sortedLatencies.length == 0) return 0;
+            int index = (int) Math.ceil(quantile * sortedLatencies.length) - 1;
+            return sortedLatencies[Math.max(0, index)];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("requests: %d ok, %d rejected, %d errors in %.1f s%n"
+                    + "throughput: %.1f req/s%n"
+                    + "latency: p50 %.3f ms, p99 %.3f ms, p999 %.3f ms, max %.3f ms",
+                    successes(), rejected, errors, elapsedNanos / 1e9,
+                    throughput(),
+                    latencyNanos(0.5) / 1e6, latencyNanos(0.99) / 1e6,
+                    latencyNanos(0.999) / 1e6, latencyNanos(1) / 1e6);
+        }
+    }
+}
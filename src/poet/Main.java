@@ -5,24 +5,84 @@ package poet;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Example program using GraphPoet.
- * 
+ *
  * <p>PS2 instructions: you are free to change this example class.
  */
 public class Main {
-    
+
+    private static final String CORPUS = "src/poet/mugar-omni-theater.txt";
+
+    private static final List<String> LOAD_INPUTS = Arrays.asList(
+            "Test the system.",
+            "Seek to explore new synergies.",
+            "The theater is a new and exciting experience.",
+            "Experience the omni theater in Boston.");
+
     /**
-     * Generate example poetry.
-     * 
-     * @param args unused
+     * Generate example poetry, or run the poem service.
+     *
+     * <p>Usage:
+     * <pre>
+     *   Main                                   print an example poem
+     *   Main serve [port]                      serve poems over HTTP (default port 8080)
+     *   Main load [workers] [seconds] [url]    load test url, or a local server if omitted
+     *   Main rate rps [workers] [seconds] [url]
+     *                                          load test at rps requests per second (open loop)
+     * </pre>
+     *
+     * @param args command and its arguments, see above
      * @throws IOException if a poet corpus file cannot be found or read
+     * @throws InterruptedException if interrupted while load testing
      */
-    public static void main(String[] args) throws IOException {
-        final GraphPoet nimoy = new GraphPoet(new File("src/poet/mugar-omni-theater.txt"));
-        final String input = "Test the system.";
-        System.out.println(input + "\n>>>\n" + nimoy.poem(input));
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            final GraphPoet nimoy = new GraphPoet(new File(CORPUS));
+            final String input = "Test the system.";
+            System.out.println(input + "\n>>>\n" + nimoy.poem(input));
+        } else if (args[0].equals("serve")) {
+            final int port = args.length > 1 ? Integer.parseInt(args[1]) : 8080;
+            // Listen at once; /health reports 503 until the corpus is loaded
+            final LazyGraphPoet poet = LazyGraphPoet.inBackground(
+                    GraphPoet.builder(new File(CORPUS)), LOAD_INPUTS.toArray(new String[0]));
+            final PoemServer server = new PoemServer(poet, port);
+            server.start();
+            System.out.println("Serving poems on http://localhost:" + server.getPort() + "/poem");
+        } else if (args[0].equals("load") || args[0].equals("rate") && args.length > 1) {
+            final boolean open = args[0].equals("rate");
+            final int first = open ? 2 : 1;
+            final double rate = open ? Double.parseDouble(args[1]) : 0;
+            final int workers = args.length > first ? Integer.parseInt(args[first]) : 16;
+            final int seconds = args.length > first + 1 ? Integer.parseInt(args[first + 1]) : 10;
+            PoemServer local = null;
+            URL target;
+            if (args.length > first + 2) {
+                target = new URL(args[first + 2]);
+            } else {
+                local = new PoemServer(new GraphPoet(new File(CORPUS)), 0);
+                local.start();
+                target = new URL("http://localhost:" + local.getPort() + "/poem");
+            }
+            try {
+                System.out.println("Load testing " + target + " with " + workers + " workers for " + seconds + " s"
+                        + (open ? " at " + rate + " requests/s" : ""));
+                final LoadGenerator load = open
+                        ? LoadGenerator.atRate(target, rate, workers, seconds, TimeUnit.SECONDS, LOAD_INPUTS)
+                        : new LoadGenerator(target, workers, seconds, TimeUnit.SECONDS, LOAD_INPUTS);
+                System.out.println(load.run());
+            } finally {
+                if (local != null) local.stop(1);
+            }
+        } else {
+            System.err.println("usage: Main [serve [port] | load [workers] [seconds] [url]"
+                    + " | rate rps [workers] [seconds] [url]]");
+        }
     }
-    
+
 }
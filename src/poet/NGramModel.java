@@ -0,0 +1,185 @@
+package poet;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import graph.Graph;
+import graph.MemoryStats;
+import graph.PrunePolicy;
+
+/**
+ * An order-n word model: a graph whose vertices are contexts of n-1
+ * consecutive words and whose edges are the n-grams seen in a corpus, from a
+ * context to the context shifted by one word, weighted by count.
+ *
+ * <p>Words are interned to small integer ids and a context is packed into one
+ * long, {@link #ID_BITS} bits per word, so contexts cost one boxed Long each
+ * rather than a concatenated string.
+ */
+class NGramModel {
+
+    /** Highest supported order; its contexts fill a long. */
+    static final int MAX_ORDER = 4;
+
+    /** Bits per word id in a packed context. */
+    static final int ID_BITS = 21;
+
+    private static final long ID_MASK = (1L << ID_BITS) - 1;
+
+    private final int order;
+    private final long contextMask;
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> words = new ArrayList<>();
+    private final Graph<Long> graph = Graph.empty();
+    private long wordBytes;
+
+    // Abstraction function:
+    //   Represents the counts of every n-gram w1 .. wn seen, n = order: the
+    //   count is the weight of the edge pack(w1 .. wn-1) -> pack(w2 .. wn),
+    //   where pack(a .. z) = sum over positions of id << (ID_BITS * distance
+    //   from the end), id(w) = ids.get(w).
+    // Representation invariant:
+    //   - 3 <= order <= MAX_ORDER.
+    //   - words.get(ids.get(w)) == w for every interned w; ids are below 2^ID_BITS.
+    //   - contextMask covers exactly order-1 ids.
+    //   - wordBytes is the estimated size of the interned words and their
+    //     lookup structures.
+    // Safety from rep exposure:
+    //   All fields are private and final; only words are returned.
+
+    /**
+     * @param order n-gram order, from 3 to MAX_ORDER
+     */
+    NGramModel(int order) {
+        if (order < 3 || order > MAX_ORDER) {
+            throw new IllegalArgumentException("Order must be between 3 and " + MAX_ORDER);
+        }
+        this.order = order;
+        this.contextMask = (1L << (ID_BITS * (order - 1))) - 1;
+        checkRep();
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        assert order >= 3 && order <= MAX_ORDER;
+        assert ids.size() == words.size();
+        assert words.size() <= ID_MASK + 1;
+    }
+
+    /**
+     * Count every n-gram in a sequence of words.
+     *
+     * @param text lower-case words in corpus order
+     * @param minCount occurrences needed before an n-gram becomes an edge, at
+     *                 least 1; rarer n-grams are only counted in a sketch
+     * @param sketchBytes largest size of that sketch in bytes, at least
+     *                    CountMinSketch.MIN_BYTES; unused if minCount is 1
+     */
+    void ingest(String[] text, int minCount, long sketchBytes) {
+        if (minCount < 1) throw new IllegalArgumentException("Minimum count must be at least 1");
+        CountMinSketch rare = minCount > 1 ? new CountMinSketch(text.length, sketchBytes) : null;
+        long context = 0;
+        for (int i = 0; i < text.length; i++) {
+            int id = intern(text[i]);
+            long next = shift(context, id);
+            if (i >= order - 1) {
+                if (rare != null && !graph.targets(context).containsKey(next)) {
+                    // Rotating keeps every word of the context; exact up to order 3
+                    int seen = rare.add(Long.rotateLeft(context, ID_BITS) ^ id);
+                    if (seen >= minCount) graph.set(context, next, seen);
+                } else {
+                    graph.increment(context, next, 1);
+                }
+            }
+            context = next;
+        }
+        checkRep();
+    }
+
+    /**
+     * Drop n-grams from the model.
+     *
+     * @param policy n-grams to drop, applied to the context graph alone
+     * @return number of n-grams dropped
+     */
+    int prune(PrunePolicy policy) {
+        return policy.prune(graph);
+    }
+
+    /**
+     * Find the bridge word that maximizes the count of (context, bridge) plus
+     * the count of (context minus its first word, bridge, next).
+     *
+     * @param context the last order-1 lower-case words before the bridge, in order
+     * @param next the lower-case word after the bridge
+     * @return the bridge word, or null if no n-grams connect context to next
+     */
+    String bridge(List<String> context, String next) {
+        if (context.size() != order - 1) throw new IllegalArgumentException("Context must have order - 1 words");
+        int nextId = id(next);
+        if (nextId < 0) return null;
+        long packed = 0;
+        for (String word : context) {
+            int id = id(word);
+            if (id < 0) return null;
+            packed = shift(packed, id);
+        }
+
+        String bridge = null;
+        long maxWeight = 0;
+        for (Map.Entry<Long, Integer> first : graph.targets(packed).entrySet()) {
+            long through = first.getKey();
+            Integer second = graph.targets(through).get(shift(through, nextId));
+            if (second != null && (long) first.getValue() + second > maxWeight) {
+                maxWeight = (long) first.getValue() + second;
+                bridge = words.get((int) (through & ID_MASK));
+            }
+        }
+        return bridge;
+    }
+
+    /**
+     * @return estimated memory of the context graph, with the vocabulary
+     *         counted as labels
+     */
+    MemoryStats memoryStats() {
+        return graph.memoryStats().plusBytes(wordBytes, 0);
+    }
+
+    /**
+     * @return the n-gram order
+     */
+    int order() {
+        return order;
+    }
+
+    private int intern(String word) {
+        Integer id = ids.get(word);
+        if (id != null) return id;
+        if (words.size() > ID_MASK) {
+            throw new IllegalStateException("Vocabulary exceeds 2^" + ID_BITS + " words");
+        }
+        ids.put(word, words.size());
+        words.add(word);
+        // The word, its id map entry and boxed id, and its list slot
+        wordBytes += 24 + ((16 + word.length() + 7) & ~7) + 32 + 16 + 4;
+        return words.size() - 1;
+    }
+
+    private int id(String word) {
+        Integer id = ids.get(word);
+        return id == null ? -1 : id;
+    }
+
+    // Drop the oldest word of context and append id
+    private long shift(long context, int id) {
+        return ((context << ID_BITS) | id) & contextMask;
+    }
+
+    @Override
+    public String toString() {
+        return "NGramModel of order " + order + " over " + words.size() + " words";
+    }
+}
@@ -0,0 +1,300 @@
+package poet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * An HTTP service that answers poem requests from a single shared poet.
+ *
+ * <p>Endpoints:
+ * <ul>
+ *   <li>{@code POST /poem} with the input text as a UTF-8 body responds with
+ *       the poem as {@code text/plain}.
+ *   <li>{@code GET /health} responds {@code 200 ok} once the poet is loaded,
+ *       {@code 503 loading} while it is loading in the background, and
+ *       {@code 500 failed} if it could not be loaded.
+ *   <li>{@code GET /stats} responds with the poet's estimated memory use and
+ *       degree summary, from {@link GraphPoet#memoryStats()}.
+ * </ul>
+ *
+ * <p>Poems requested before a background-loading poet is ready echo their
+ * input, as {@link LazyGraphPoet#poem(String)} does.
+ *
+ * <p>Bodies larger than the input limit are rejected with 413. When the
+ * configured number of requests are already in flight, further requests are
+ * rejected immediately with 503 and a {@code Retry-After} header instead of
+ * queueing without bound.
+ *
+ * <p>Unexpected failures while answering a request respond 500 and are logged
+ * to this class's {@link Logger}: the first of each exception type at
+ * SEVERE with its stack trace, and repeats at FINE, so a failure that recurs
+ * under load is visible without flooding the log.
+ */
+public class PoemServer {
+
+    /** Default maximum number of requests processed at once. */
+    public static final int DEFAULT_MAX_CONCURRENT = 256;
+
+    /** Default maximum request body size, in bytes. */
+    public static final int DEFAULT_MAX_INPUT_BYTES = 16 * 1024;
+
+    private static final Logger LOG = Logger.getLogger(PoemServer.class.getName());
+
+    static {
+        // Poems are small responses; without TCP_NODELAY, Nagle's algorithm
+        // and delayed ACKs add tens of milliseconds to every keep-alive request.
+        // Read once by the JDK server, so it must be set before the first create().
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final LazyGraphPoet poet;
+    private final int maxInputBytes;
+    private final Semaphore permits;
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Set<Class<?>> failuresLogged = ConcurrentHashMap.newKeySet();
+
+    // Abstraction function:
+    //   Represents an HTTP endpoint serving poet.poem(body) for request bodies
+    //   of at most maxInputBytes, with at most permits' initial count requests
+    //   being processed at once.
+    // Representation invariant:
+    //   - poet, permits, server, executor are non-null.
+    //   - maxInputBytes > 0.
+    //   - failuresLogged holds the exception types already logged at SEVERE.
+    // Safety from rep exposure:
+    //   All fields are private and final; the poet is only ever read.
+
+    /**
+     * Create a server on the given port with default limits. The server does
+     * not accept connections until {@link #start()} is called.
+     *
+     * @param poet poet used for every request; must not be modified while serving
+     * @param port port to listen on, or 0 for an ephemeral port
+     * @throws IOException if the port cannot be bound
+     */
+    public PoemServer(GraphPoet poet, int port) throws IOException {
+        this(poet, port, DEFAULT_MAX_CONCURRENT, DEFAULT_MAX_INPUT_BYTES);
+    }
+
+    /**
+     * Create a server on the given port. The server does not accept
+     * connections until {@link #start()} is called.
+     *
+     * @param poet poet used for every request; must not be modified while serving
+     * @param port port to listen on, or 0 for an ephemeral port
+     * @param maxConcurrent maximum number of requests processed at once, at least 1
+     * @param maxInputBytes maximum request body size in bytes, at least 1
+     * @throws IOException if the port cannot be bound
+     */
+    public PoemServer(GraphPoet poet, int port, int maxConcurrent, int maxInputBytes) throws IOException {
+        this(LazyGraphPoet.of(poet), port, maxConcurrent, maxInputBytes);
+    }
+
+    /**
+     * Create a server on the given port with default limits, for a poet that
+     * may still be loading. The server does not accept connections until
+     * {@link #start()} is called.
+     *
+     * @param poet poet used for every request
+     * @param port port to listen on, or 0 for an ephemeral port
+     * @throws IOException if the port cannot be bound
+     */
+    public PoemServer(LazyGraphPoet poet, int port) throws IOException {
+        this(poet, port, DEFAULT_MAX_CONCURRENT, DEFAULT_MAX_INPUT_BYTES);
+    }
+
+    /**
+     * Create a server on the given port, for a poet that may still be loading.
+     * The server does not accept connections until {@link #start()} is called.
+     *
+     * @param poet poet used for every request
+     * @param port port to listen on, or 0 for an ephemeral port
+     * @param maxConcurrent maximum number of requests processed at once, at least 1
+     * @param maxInputBytes maximum request body size in bytes, at least 1
+     * @throws IOException if the port cannot be bound
+     */
+    public PoemServer(LazyGraphPoet poet, int port, int maxConcurrent, int maxInputBytes) throws IOException {
+        if (poet == null) throw new IllegalArgumentException("Poet cannot be null");
+        if (maxConcurrent < 1) throw new IllegalArgumentException("Concurrency limit must be at least 1");
+        if (maxInputBytes < 1) throw new IllegalArgumentException("Input limit must be at least 1");
+        this.poet = poet;
+        this.maxInputBytes = maxInputBytes;
+        this.permits = new Semaphore(maxConcurrent);
+        this.executor = newRequestExecutor();
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.setExecutor(executor);
+        server.createContext("/poem", this::handlePoem);
+        server.createContext("/health", this::handleHealth);
+        server.createContext("/stats", this::handleStats);
+        checkRep();
+    }
+
+    // Check representation invariant
+    private void checkRep() {
+        assert poet != null;
+        assert permits != null;
+        assert server != null;
+        assert executor != null;
+        assert maxInputBytes > 0;
+    }
+
+    /**
+     * Start accepting requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop accepting requests, waiting up to delaySeconds for in-flight
+     * requests to finish.
+     *
+     * @param delaySeconds maximum time to wait for in-flight requests
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+        try {
+            executor.awaitTermination(delaySeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the port this server is bound to
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handlePoem(HttpExchange exchange) throws IOException {
+        try {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().set("Allow", "POST");
+                respond(exchange, 405, "use POST");
+                return;
+            }
+            String length = exchange.getRequestHeaders().getFirst("Content-Length");
+            if (length != null && Long.parseLong(length.trim()) > maxInputBytes) {
+                respond(exchange, 413, "input exceeds " + maxInputBytes + " bytes");
+                return;
+            }
+            if (!permits.tryAcquire()) {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 503, "busy");
+                return;
+            }
+            try {
+                byte[] body = readBody(exchange.getRequestBody());
+                if (body == null) {
+                    respond(exchange, 413, "input exceeds " + maxInputBytes + " bytes");
+                    return;
+                }
+                respond(exchange, 200, poet.poem(new String(body, StandardCharsets.UTF_8)));
+            } finally {
+                permits.release();
+            }
+        } catch (NumberFormatException e) {
+            respond(exchange, 400, "bad Content-Length");
+        } catch (RuntimeException e) {
+            logFailure(exchange, e);
+            if (exchange.getResponseCode() == -1) respond(exchange, 500, "internal error");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Log an unexpected failure, in full the first time its type is seen
+    private void logFailure(HttpExchange exchange, RuntimeException e) {
+        Level level = failuresLogged.add(e.getClass()) ? Level.SEVERE : Level.FINE;
+        if (LOG.isLoggable(level)) {
+            LOG.log(level, "Request " + exchange.getRequestMethod() + " " + exchange.getRequestURI() + " failed", e);
+        }
+    }
+
+    private void handleHealth(HttpExchange exchange) throws IOException {
+        try {
+            if (poet.isReady()) {
+                respond(exchange, 200, "ok");
+            } else if (poet.isDone()) {
+                respond(exchange, 500, "failed");
+            } else {
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                respond(exchange, 503, "loading");
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try {
+            respond(exchange, 200, poet.memoryStats().toString());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Read at most maxInputBytes, or return null if the body is longer.
+    // Chunked requests carry no Content-Length, so the limit is enforced here too.
+    private byte[] readBody(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(maxInputBytes, 1024));
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            if (out.size() + read > maxInputBytes) return null;
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    // One virtual thread per request when the running JDK has them (21+).
+    // Looked up reflectively so the project still builds for Java 8; older
+    // JDKs fall back to a cached pool, still bounded in practice by permits.
+    private static ExecutorService newRequestExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "poem-request");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "PoemServer on port " + getPort();
+    }
+}
@@ -0,0 +1,171 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Tests for AdaptiveGraph.
+ *
+ * This class runs the GraphInstanceTest tests against AdaptiveGraph, as
+ * well as tests for that particular implementation.
+ *
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class AdaptiveGraphTest extends GraphInstanceTest {
+
+    /*
+     * Provide an AdaptiveGraph for tests in GraphInstanceTest.
+     */
+    @Override
+    public Graph<String> emptyInstance() {
+        return new AdaptiveGraph<>();
+    }
+
+    /*
+     * Testing AdaptiveGraph...
+     */
+
+    // Testing strategy for AdaptiveGraph
+    //   layout: edge list, hashed, array
+    //   transitions: growth past threshold, size hints, read-dominated
+    //     compaction, explicit compact(), mutation after compaction,
+    //     occasional writes among many reads on a large graph
+    //   observers must agree before and after every transition; a vertex
+    //     set taken before a transition follows it
+
+    // Build a chain of n edges: v0 -> v1 -> ... -> vn, weight i+1
+    private static void chain(Graph<String> graph, int n) {
+        for (int i = 0; i < n; i++) {
+            graph.set("v" + i, "v" + (i + 1), i + 1);
+        }
+    }
+
+    @Test
+    public void testStartsAsEdgeList() {
+        AdaptiveGraph<String> graph = new AdaptiveGraph<>();
+        chain(graph, AdaptiveGraph.HASHED_EDGE_THRESHOLD);
+        assertEquals(AdaptiveGraph.Layout.EDGE_LIST, graph.layout());
+    }
+
+    @Test
+    public void testGrowsToHashed() {
+        AdaptiveGraph<String> graph = new AdaptiveGraph<>();
+        int n = AdaptiveGraph.HASHED_EDGE_THRESHOLD + 1;
+        chain(graph, n);
+        assertEquals(AdaptiveGraph.Layout.HASHED, graph.layout());
+        assertEquals(n + 1, graph.vertices().size());
+        assertEquals((Integer) n, graph.targets("v" + (n - 1)).get("v" + n));
+        assertEquals((Integer) 1, graph.sources("v1").get("v0"));
+    }
+
+    @Test
+    public void testSizeHintStartsHashed() {
+        AdaptiveGraph<String> graph = new AdaptiveGraph<>(1000, 10000);
+        assertEquals(AdaptiveGraph.Layout.HASHED, graph.layout());
+        AdaptiveGraph<String> small = new AdaptiveGraph<>(3, 3);
+        assertEquals(AdaptiveGraph.Layout.EDGE_LIST, small.layout());
+    }
+
+    @Test
+    public void testReadsCompactToArray() {
+        AdaptiveGraph<String> graph = new AdaptiveGraph<>(0, 1000);
+        chain(graph, 10);
+        for (int i = 0; i < AdaptiveGraph.COMPACT_MIN_READS; i++) {
+            graph.targets("v" + (i % 10));
+        }
+        assertEquals(AdaptiveGraph.Layout.ARRAY, graph.layout());
+        assertEquals((Integer) 5, graph.targets("v4").get("v5"));
+        assertEquals((Integer) 5, graph.sources("v5").get("v4"));
+        assertFalse(graph.targets("v4").containsKey("v3"));
+    }
+
+    @Test
+    public void testMutateAfterCompact() {
+        AdaptiveGraph<String> graph = new AdaptiveGraph<>();
+        chain(graph, 5);
+        graph.compact();
+        assertEquals(AdaptiveGraph.Layout.ARRAY, graph.layout());
+        assertEquals("expected previous weight", 3, graph.set("v2", "v3", 7));
+        assertNotEquals(AdaptiveGraph.Layout.ARRAY, graph.layout());
+        assertEquals((Integer) 7, graph.targets("v2").get("v3"));
+        assertTrue(graph.remove("v3"));
+        assertTrue(graph.targets("v2").isEmpty());
+        assertTrue(graph.sources("v4").isEmpty());
+    }
+
+    @Test
+    public void testVerticesViewFollowsMigrations() {
+        AdaptiveGraph<String> graph = new AdaptiveGraph<>();
+        Set<String> vertices = graph.vertices();
+        chain(graph, AdaptiveGraph.HASHED_EDGE_THRESHOLD + 1);
+        assertEquals(AdaptiveGraph.Layout.HASHED, graph.layout());
+        assertEquals(AdaptiveGraph.HASHED_EDGE_THRESHOLD + 2, vertices.size());
+        graph.compact();
+        graph.add("late");
+        assertTrue("expected vertex added after compaction", vertices.contains("late"));
+        assertTrue(graph.remove("v0"));
+        assertFalse("expected removed vertex gone", vertices.contains("v0"));
+        assertEquals(new HashSet<>(graph.vertices()), new HashSet<>(vertices));
+    }
+
+    @Test
+    public void testOccasionalWritesBackOff() {
+        AdaptiveGraph<String> graph = new AdaptiveGraph<>(0, 1000);
+        int n = 20 * AdaptiveGraph.COMPACT_MIN_READS;
+        chain(graph, n);
+        graph.compact();
+        AdaptiveGraph.Layout last = graph.layout();
+        int migrations = 0;
+        for (int cycle = 0; cycle < 200; cycle++) {
+            for (int i = 0; i < AdaptiveGraph.COMPACT_MIN_READS + 100; i++) {
+                graph.targets("v" + i);
+                if (graph.layout() != last) migrations++;
+                last = graph.layout();
+            }
+            graph.set("v" + cycle, "v0", 1);
+            if (graph.layout() != last) migrations++;
+            last = graph.layout();
+        }
+        assertTrue("expected compaction to back off, got " + migrations + " migrations", migrations <= 8);
+        assertEquals((Integer) 1, graph.targets("v199").get("v0"));
+    }
+
+    @Test
+    public void testObserversAgreeAcrossLayouts() {
+        AdaptiveGraph<String> graph = new AdaptiveGraph<>();
+        chain(graph, AdaptiveGraph.HASHED_EDGE_THRESHOLD + 10);
+        graph.set("v3", "v3", 2);
+        graph.set("v7", "v1", 4);
+        Map<String, Map<String, Integer>> before = new HashMap<>();
+        for (String v : graph.vertices()) before.put(v, new HashMap<>(graph.targets(v)));
+        graph.compact();
+        for (String v : graph.vertices()) {
+            assertEquals("targets of " + v, before.get(v), new HashMap<>(graph.targets(v)));
+        }
+        assertEquals(before.keySet(), graph.vertices());
+        assertEquals((Integer) 4, graph.sources("v1").get("v7"));
+        assertEquals((Integer) 2, graph.sources("v3").get("v3"));
+    }
+
+    @Test
+    public void testRemoveVertexWithSelfLoop() {
+        AdaptiveGraph<String> graph = new AdaptiveGraph<>();
+        chain(graph, AdaptiveGraph.HASHED_EDGE_THRESHOLD + 1);
+        graph.set("v1", "v1", 1);
+        assertTrue(graph.remove("v1"));
+        assertFalse(graph.vertices().contains("v1"));
+        assertTrue(graph.targets("v0").isEmpty());
+        assertTrue(graph.sources("v2").isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeWeight() {
+        new AdaptiveGraph<String>().set("a", "b", -1);
+    }
+}
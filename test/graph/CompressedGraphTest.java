@@ -0,0 +1,172 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Tests for CompressedGraph.
+ *
+ * This class runs the GraphInstanceTest tests against CompressedGraph, as
+ * well as tests for that particular implementation.
+ *
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class CompressedGraphTest extends GraphInstanceTest {
+
+    /*
+     * Provide a CompressedGraph for tests in GraphInstanceTest.
+     */
+    @Override
+    public Graph<String> emptyInstance() {
+        return new CompressedGraph<>();
+    }
+
+    /*
+     * Testing CompressedGraph...
+     */
+
+    // Testing strategy for CompressedGraph
+    //   row degree: 0, 1, <= BLOCK, > BLOCK (skip index used)
+    //   weight width: all 1, fits 1 byte, 2 bytes, 4 bytes
+    //   neighbor id gaps: small, large (multi-byte varints)
+    //   mutations: insert before/after/between existing ids, update, delete,
+    //     vertex removal, id reuse after removal
+    //   copyOf: agrees with the source graph
+    //   memoryStats: costs encoded rows, not per-edge objects, through
+    //     copyOf, mutations and removal of every vertex; at least
+    //     MIN_SAVING smaller than ConcreteVerticesGraph
+
+    // Smallest ratio of ConcreteVerticesGraph's estimate to CompressedGraph's,
+    // labels excluded, on a random graph of 10 edges per vertex; see the
+    // class doc for measured heap ratios
+    private static final double MIN_SAVING = 4;
+
+    @Test
+    public void testHighDegreeRow() {
+        Graph<String> graph = emptyInstance();
+        int degree = CompressedGraph.BLOCK * 5 + 3;
+        // Insert in descending order so every set() lands before existing ids
+        for (int i = degree - 1; i >= 0; i--) {
+            graph.set("hub", "n" + i, i + 1);
+        }
+        assertEquals(degree, graph.targets("hub").size());
+        for (int i = 0; i < degree; i++) {
+            assertEquals("weight of n" + i, (Integer) (i + 1), graph.targets("hub").get("n" + i));
+            assertEquals("source of n" + i, (Integer) (i + 1), graph.sources("n" + i).get("hub"));
+        }
+        assertNull(graph.targets("hub").get("hub"));
+        assertNull(graph.targets("hub").get("missing"));
+    }
+
+    @Test
+    public void testWeightWidths() {
+        Graph<String> graph = emptyInstance();
+        int[] weights = { 1, 200, 60000, 70000, Integer.MAX_VALUE };
+        for (int i = 0; i < weights.length; i++) {
+            graph.set("a", "b" + i, weights[i]);
+            for (int j = 0; j <= i; j++) {
+                assertEquals((Integer) weights[j], graph.targets("a").get("b" + j));
+            }
+        }
+        assertEquals(Integer.MAX_VALUE, graph.set("a", "b4", 1));
+        assertEquals(70000, graph.set("a", "b3", 0));
+        assertFalse(graph.targets("a").containsKey("b3"));
+        assertEquals(4, graph.targets("a").size());
+    }
+
+    @Test
+    public void testLargeIdGaps() {
+        Graph<String> graph = emptyInstance();
+        for (int i = 0; i < 20000; i++) {
+            graph.add("v" + i);
+        }
+        graph.set("v0", "v19999", 3);
+        graph.set("v0", "v1", 2);
+        graph.set("v0", "v300", 4);
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put("v19999", 3);
+        expected.put("v1", 2);
+        expected.put("v300", 4);
+        assertEquals(expected, new HashMap<>(graph.targets("v0")));
+    }
+
+    @Test
+    public void testRemoveAndReuseId() {
+        Graph<String> graph = emptyInstance();
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 2);
+        graph.set("c", "b", 3);
+        graph.set("b", "b", 4);
+        assertTrue(graph.remove("b"));
+        assertTrue(graph.targets("a").isEmpty());
+        assertTrue(graph.sources("c").isEmpty());
+        graph.add("d");
+        assertTrue(graph.targets("d").isEmpty());
+        assertTrue(graph.sources("d").isEmpty());
+        graph.set("d", "a", 5);
+        assertEquals((Integer) 5, graph.sources("a").get("d"));
+        assertEquals(3, graph.vertices().size());
+    }
+
+    @Test
+    public void testCopyOf() {
+        Graph<String> source = new ConcreteVerticesGraph();
+        for (int i = 0; i < 200; i++) {
+            source.set("w" + (i % 37), "w" + (i * 7 % 53), i + 1);
+        }
+        source.add("isolated");
+        CompressedGraph<String> copy = CompressedGraph.copyOf(source);
+        assertEquals(source.vertices(), copy.vertices());
+        for (String v : source.vertices()) {
+            assertEquals("targets of " + v, source.targets(v), new HashMap<>(copy.targets(v)));
+            assertEquals("sources of " + v, source.sources(v), new HashMap<>(copy.sources(v)));
+        }
+    }
+
+    @Test
+    public void testMemoryStatsCountsRows() {
+        Graph<String> source = new HashedGraph<>(0);
+        for (int i = 0; i < 2000; i++) {
+            source.set("w" + (i % 100), "w" + (i * 7 % 101), 1);
+        }
+        CompressedGraph<String> copy = CompressedGraph.copyOf(source);
+        MemoryStats stats = copy.memoryStats();
+        assertEquals(source.vertices().size(), stats.getVertexCount());
+        assertEquals(source.memoryStats().getEdgeCount(), stats.getEdgeCount());
+        assertTrue("expected rows smaller than hashed edges: " + stats,
+                stats.getEdgeBytes() * 4 < source.memoryStats().getEdgeBytes());
+
+        copy.set("w0", "new", 70000);
+        assertTrue("expected wider weights to cost more", copy.memoryStats().getEdgeBytes() > stats.getEdgeBytes());
+        for (String v : source.vertices()) {
+            copy.remove(v);
+        }
+        copy.remove("new");
+        MemoryStats empty = copy.memoryStats();
+        assertEquals(0, empty.getVertexCount());
+        assertEquals(0, empty.getEdgeCount());
+        assertEquals("expected no row bytes once empty", 0, empty.getEdgeBytes());
+    }
+
+    @Test
+    public void testSmallerThanConcreteVerticesGraph() {
+        Graph<String> vertices = new ConcreteVerticesGraph();
+        Random random = new Random(29);
+        for (int i = 0; i < 2000; i++) vertices.add("w" + i);
+        for (int i = 0; i < 20000; i++) {
+            vertices.set("w" + random.nextInt(2000), "w" + random.nextInt(2000), 1 + random.nextInt(1000));
+        }
+        MemoryStats expanded = vertices.memoryStats();
+        MemoryStats compressed = CompressedGraph.copyOf(vertices).memoryStats();
+        assertEquals(expanded.getEdgeCount(), compressed.getEdgeCount());
+        double saving = (double) (expanded.getTotalBytes() - expanded.getLabelBytes())
+                / (compressed.getTotalBytes() - compressed.getLabelBytes());
+        assertTrue("expected at least " + MIN_SAVING + "x smaller, was " + saving + "x: " + compressed,
+                saving >= MIN_SAVING);
+    }
+}
@@ -2,6 +2,8 @@ package graph;
 
 import static org.junit.Assert.*;
 
+import java.util.Spliterator;
+
 import org.junit.Test;
 
 /**
@@ -22,6 +24,21 @@ public class ConcreteEdgesGraphTest extends GraphInstanceTest {
         return new ConcreteEdgesGraph();
     }
 
+    /*
+     * Every operation searches the list of edges, and checkRep() walks it
+     * again, so cost per operation grows linearly with the graph by design:
+     * grow a smaller graph, and only fail on worse than linear growth.
+     */
+    @Override
+    protected int stressVertices() {
+        return 1600;
+    }
+
+    @Override
+    protected double maxScaleGrowth() {
+        return GraphWorkload.MAX_LINEAR_GROWTH;
+    }
+
     /*
      * Testing ConcreteEdgesGraph...
      */
@@ -93,5 +110,17 @@ public class ConcreteEdgesGraphTest extends GraphInstanceTest {
         // Verifying the edge no longer exists or has been removed
         assertFalse("expected edge to be removed", graph.targets("A").containsKey("B"));
     }
-}
 
+    // edges() knows its exact size up front
+    @Test
+    public void testEdgesSized() {
+        Graph<String> graph = emptyInstance();
+        graph.set("A", "B", 1);
+        graph.set("B", "C", 2);
+        graph.set("C", "A", 3);
+        graph.remove("C");
+        Spliterator<WeightedEdge<String>> edges = graph.edges();
+        assertTrue("expected SIZED", edges.hasCharacteristics(Spliterator.SIZED));
+        assertEquals("expected exact size", 1, edges.getExactSizeIfKnown());
+    }
+}
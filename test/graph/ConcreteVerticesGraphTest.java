@@ -2,6 +2,8 @@ package graph;
 
 import static org.junit.Assert.*;
 
+import java.util.Spliterator;
+
 import org.junit.Test;
 
 /**
@@ -22,6 +24,21 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
         return new ConcreteVerticesGraph();
     }
 
+    /*
+     * Vertices are found by scanning the vertex list, and checkRep() visits
+     * every vertex, so cost per operation grows linearly with the graph by
+     * design: grow a smaller graph, and only fail on worse than linear growth.
+     */
+    @Override
+    protected int stressVertices() {
+        return 1600;
+    }
+
+    @Override
+    protected double maxScaleGrowth() {
+        return GraphWorkload.MAX_LINEAR_GROWTH;
+    }
+
     /*
      * Testing ConcreteVerticesGraph...
      */
@@ -91,5 +108,17 @@ public class ConcreteVerticesGraphTest extends GraphInstanceTest {
         assertTrue("expected vertex A to be present with an edge to B", graph.vertices().contains("A"));
         assertEquals("expected edge from A to B with weight 5", (Integer) 5, graph.targets("A").get("B"));
     }
-}
 
+    // edges() knows its exact size up front
+    @Test
+    public void testEdgesSized() {
+        Graph<String> graph = emptyInstance();
+        graph.set("A", "B", 1);
+        graph.set("B", "C", 2);
+        graph.set("C", "A", 3);
+        graph.remove("C");
+        Spliterator<WeightedEdge<String>> edges = graph.edges();
+        assertTrue("expected SIZED", edges.hasCharacteristics(Spliterator.SIZED));
+        assertEquals("expected exact size", 1, edges.getExactSizeIfKnown());
+    }
+}
@@ -3,7 +3,10 @@ package graph;
 import static org.junit.Assert.*;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import org.junit.Test;
 
@@ -11,6 +14,17 @@ public abstract class GraphInstanceTest {
     
     // Provide empty instance of Graph for each test
     public abstract Graph<String> emptyInstance();
+
+    // Number of vertices testScaleGrowth() grows to
+    protected int stressVertices() {
+        return 80_000;
+    }
+
+    // Largest ratio testScaleGrowth() allows between the median cost of an
+    // operation on its larger and on its smaller graph
+    protected double maxScaleGrowth() {
+        return GraphWorkload.MAX_GROWTH;
+    }
     
     // Testing strategy:
     // - testInitialVerticesEmpty(): test that a new graph has no vertices
@@ -19,6 +33,18 @@ public abstract class GraphInstanceTest {
     // - testSetEdge(): add edges and check if they exist with correct weights
     // - testRemoveVertex(): remove a vertex and verify it no longer exists
     // - testSourcesAndTargets(): check sources and targets for directed edges
+    // - testEdgesEmpty(), testEdgesMatchTargets(), testParallelEdgeStream():
+    //   edges() and edgeStream() yield every edge exactly once, sequentially
+    //   and in parallel
+    // - testIncrement(), testIncrementSaturates(): increment() creates and
+    //   adds to edges, saturating at Integer.MAX_VALUE
+    // - testMemoryStats(): memoryStats() counts vertices, edges and out-degrees
+    //   as the graph grows and shrinks
+    // - testRandomOperationsMatchReference(): generated add/set/remove workload
+    //   agrees with a reference model (see GraphWorkload)
+    // - testScaleGrowth(): the median cost of every kind of operation does
+    //   not grow with the size of the graph, or for implementations linear
+    //   by design, grows no faster than linearly
 
     // Test that a new graph has no vertices
     @Test
@@ -80,5 +106,117 @@ public abstract class GraphInstanceTest {
         assertEquals("expected target B with weight 3 from vertex A", (Integer) 3, graph.targets("A").get("B"));
         assertTrue("expected no other targets from vertex A", graph.targets("A").size() == 1);
     }
-}
 
+    // Check edges() on an empty graph
+    @Test
+    public void testEdgesEmpty() {
+        Graph<String> graph = emptyInstance();
+        graph.add("A");
+        assertEquals("expected no edges", 0, graph.edgeStream().count());
+    }
+
+    // Check edgeStream() yields exactly the edges reported by targets()
+    @Test
+    public void testEdgesMatchTargets() {
+        Graph<String> graph = emptyInstance();
+        graph.set("A", "B", 3);
+        graph.set("B", "C", 2);
+        graph.set("C", "C", 1);
+        graph.set("C", "A", 4);
+        graph.set("B", "C", 0);
+        graph.add("D");
+        Map<String, Map<String, Integer>> expected = new HashMap<>();
+        for (String v : graph.vertices()) {
+            if (!graph.targets(v).isEmpty()) expected.put(v, new HashMap<>(graph.targets(v)));
+        }
+        Map<String, Map<String, Integer>> actual = graph.edgeStream().collect(Collectors.groupingBy(
+                WeightedEdge::getSource,
+                Collectors.toMap(WeightedEdge::getTarget, WeightedEdge::getWeight)));
+        assertEquals("expected edges to match targets", expected, actual);
+    }
+
+    // Check a parallel edge stream over a larger graph sees every edge once
+    @Test
+    public void testParallelEdgeStream() {
+        Graph<String> graph = emptyInstance();
+        long expectedWeight = 0;
+        for (int i = 0; i < 300; i++) {
+            graph.set("v" + (i % 40), "v" + (i * 7 % 31), i + 1);
+        }
+        for (String v : graph.vertices()) {
+            for (int weight : graph.targets(v).values()) expectedWeight += weight;
+        }
+        assertEquals("expected total weight", expectedWeight,
+                graph.edgeStream().parallel().mapToLong(WeightedEdge::getWeight).sum());
+        assertEquals("expected distinct edges", graph.edgeStream().count(),
+                graph.edgeStream().parallel().distinct().count());
+    }
+
+    // Increment creates a missing edge and adds to an existing one
+    @Test
+    public void testIncrement() {
+        Graph<String> graph = emptyInstance();
+        assertEquals("expected no previous edge", 0, graph.increment("A", "B", 2));
+        assertEquals("expected previous weight", 2, graph.increment("A", "B", 3));
+        assertEquals("expected summed weight", Integer.valueOf(5), graph.targets("A").get("B"));
+    }
+
+    // Increment past Integer.MAX_VALUE saturates instead of overflowing
+    @Test
+    public void testIncrementSaturates() {
+        Graph<String> graph = emptyInstance();
+        graph.set("A", "B", Integer.MAX_VALUE - 1);
+        graph.increment("A", "B", 5);
+        graph.increment("A", "B", 1);
+        assertEquals("expected saturated weight", Integer.valueOf(Integer.MAX_VALUE), graph.targets("A").get("B"));
+    }
+
+    // Random operations give the same results as a reference model
+    @Test
+    public void testRandomOperationsMatchReference() {
+        GraphWorkload.differential(emptyInstance(), GraphWorkload.ops(), 6005);
+    }
+
+    // Operations cost no more as the graph grows, or no more than
+    // maxScaleGrowth() allows
+    @Test
+    public void testScaleGrowth() {
+        GraphWorkload.scale(this::emptyInstance, stressVertices(), maxScaleGrowth(), 6005);
+    }
+
+    // Memory stats follow vertices, edges and out-degrees through changes
+    @Test
+    public void testMemoryStats() {
+        Graph<String> graph = emptyInstance();
+        MemoryStats empty = graph.memoryStats();
+        assertEquals("expected no vertices", 0, empty.getVertexCount());
+        assertEquals("expected no edges", 0, empty.getEdgeCount());
+        assertEquals("expected no edge bytes", 0, empty.getEdgeBytes());
+
+        graph.set("A", "B", 1);
+        graph.set("A", "C", 2);
+        graph.set("A", "A", 3);
+        graph.set("B", "C", 4);
+        graph.add("D");
+        MemoryStats stats = graph.memoryStats();
+        assertEquals("expected vertices", 4, stats.getVertexCount());
+        assertEquals("expected edges", 4, stats.getEdgeCount());
+        assertEquals("expected mean out-degree", 1.0, stats.getMeanOutDegree(), 1e-9);
+        assertEquals("expected max out-degree bound", 3, stats.getMaxOutDegreeBound());
+        long[] histogram = stats.getOutDegreeHistogram();
+        assertEquals("expected degree 0: C, D", 2, histogram[0]);
+        assertEquals("expected degree 1: B", 1, histogram[1]);
+        assertEquals("expected degree 2-3: A", 1, histogram[2]);
+        assertTrue("expected labels counted", stats.getLabelBytes() > 0);
+        assertTrue("expected edges to cost memory", stats.getEdgeBytes() > 0);
+        assertTrue("expected total to add up", stats.getTotalBytes() >= stats.getVertexBytes() + stats.getEdgeBytes());
+
+        graph.remove("C");
+        graph.set("A", "A", 0);
+        stats = graph.memoryStats();
+        assertEquals("expected vertices after removal", 3, stats.getVertexCount());
+        assertEquals("expected edges after removal", 1, stats.getEdgeCount());
+        assertEquals("expected degree 0: B, D", 2, stats.getOutDegreeHistogram()[0]);
+        assertEquals("expected degree 1: A", 1, stats.getOutDegreeHistogram()[1]);
+    }
+}
@@ -21,6 +21,8 @@ public class GraphStaticTest {
     //   empty()
     //     no inputs, only output is empty graph
     //     observe with vertices()
+    //   withExpectedSize()
+    //     large hints, output is empty graph
     
     @Test(expected=AssertionError.class)
     public void testAssertionsEnabled() {
@@ -33,6 +35,12 @@ public class GraphStaticTest {
                 Collections.emptySet(), Graph.empty().vertices());
     }
     
+    @Test
+    public void testWithExpectedSizeVerticesEmpty() {
+        assertEquals("expected withExpectedSize() graph to have no vertices",
+                Collections.emptySet(), Graph.withExpectedSize(1000, 100000).vertices());
+    }
+    
     // TODO test other vertex label types in Problem 3.2
     
 }
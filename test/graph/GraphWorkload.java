@@ -0,0 +1,250 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Generated workloads for Graph implementations, shared by every
+ * GraphInstanceTest subclass.
+ *
+ * <p>{@link #differential} applies random add/set/remove operations to a
+ * graph and to a simple reference model, failing on the first disagreement.
+ * {@link #scale} grows graphs of two sizes and fails if the median cost of
+ * any kind of operation grows with the size of the graph, which catches
+ * accidental O(n) work per operation (O(n^2) overall) whatever the speed of
+ * the machine. Implementations that are linear per operation by design are
+ * held to linear growth instead.
+ *
+ * <p>Settings can be changed from the command line:
+ * {@code -Dgraph.stress.ops=5000000} runs more operations per implementation,
+ * and {@code -Dgraph.stress.budgetNanos=50000} also fails a scale run if any
+ * kind of operation has a median cost above that on the larger graph.
+ */
+final class GraphWorkload {
+
+    /** Random operations per differential run, unless overridden. */
+    static final int DEFAULT_OPS = 1_000_000;
+
+    /** Ratio of the larger to the smaller graph in a scale run. */
+    static final int SCALE_FACTOR = 8;
+
+    /**
+     * Largest allowed ratio of median cost per operation on the larger graph
+     * to that on the smaller one; constant-time operations stay near 1, and
+     * linear ones approach SCALE_FACTOR.
+     */
+    static final double MAX_GROWTH = 4;
+
+    /**
+     * Largest allowed ratio for implementations whose operations are linear
+     * in the graph size by design; quadratic ones approach SCALE_FACTOR^2.
+     */
+    static final double MAX_LINEAR_GROWTH = MAX_GROWTH * SCALE_FACTOR;
+
+    /** Timed runs of the scale workload; each kind of operation is judged by its best. */
+    private static final int ROUNDS = 3;
+
+    private static final String[] KINDS = { "add", "set", "targets+sources", "remove" };
+
+    /** Distinct labels in a differential run; small, so operations collide often. */
+    private static final int LABELS = 48;
+
+    /** Operations between full comparisons of graph and reference. */
+    private static final int FULL_CHECK_INTERVAL = 1000;
+
+    private GraphWorkload() {
+        // static helpers only
+    }
+
+    /**
+     * @return number of operations per differential run
+     */
+    static int ops() {
+        return Integer.getInteger("graph.stress.ops", DEFAULT_OPS);
+    }
+
+    /**
+     * @return median nanoseconds allowed per operation on the larger graph of
+     *         a scale run, or 0 for no absolute budget
+     */
+    static long budgetNanos() {
+        return Long.getLong("graph.stress.budgetNanos", 0);
+    }
+
+    // New label object each call, so implementations comparing labels with ==
+    // instead of equals() are caught
+    private static String label(int i) {
+        return new String("v" + i);
+    }
+
+    /**
+     * Apply ops random operations to graph and to a reference model,
+     * asserting after each one that their results agree, and comparing the
+     * whole graph every FULL_CHECK_INTERVAL operations.
+     *
+     * @param graph empty graph under test
+     * @param ops number of operations
+     * @param seed random seed, reported in failure messages
+     */
+    static void differential(Graph<String> graph, int ops, long seed) {
+        Random random = new Random(seed);
+        Map<String, Map<String, Integer>> reference = new HashMap<>();
+        for (int op = 0; op < ops; op++) {
+            String at = "seed " + seed + ", op " + op + ": ";
+            int dice = random.nextInt(100);
+            String a = label(random.nextInt(LABELS));
+            if (dice < 10) {
+                assertEquals(at + "add(" + a + ")", !reference.containsKey(a), graph.add(a));
+                reference.putIfAbsent(a, new HashMap<>());
+            } else if (dice < 85) {
+                String b = label(random.nextInt(LABELS));
+                int weight = dice < 30 ? 0 : dice < 83 ? 1 + random.nextInt(5) : Integer.MAX_VALUE - random.nextInt(2);
+                reference.putIfAbsent(a, new HashMap<>());
+                reference.putIfAbsent(b, new HashMap<>());
+                Integer previous = weight == 0 ? reference.get(a).remove(b) : reference.get(a).put(b, weight);
+                assertEquals(at + "set(" + a + ", " + b + ", " + weight + ")",
+                        previous == null ? 0 : previous.intValue(), graph.set(a, b, weight));
+                assertEquals(at + "targets(" + a + ")", reference.get(a), new HashMap<>(graph.targets(a)));
+                assertEquals(at + "sources(" + b + ")", sources(reference, b), new HashMap<>(graph.sources(b)));
+            } else {
+                boolean present = reference.remove(a) != null;
+                for (Map<String, Integer> targets : reference.values()) {
+                    targets.remove(a);
+                }
+                assertEquals(at + "remove(" + a + ")", present, graph.remove(a));
+                assertTrue(at + "targets of removed " + a, graph.targets(a).isEmpty());
+                assertTrue(at + "sources of removed " + a, graph.sources(a).isEmpty());
+            }
+            if (op % FULL_CHECK_INTERVAL == FULL_CHECK_INTERVAL - 1 || op == ops - 1) {
+                assertMatches(at, reference, graph);
+            }
+        }
+    }
+
+    private static Map<String, Integer> sources(Map<String, Map<String, Integer>> reference, String target) {
+        Map<String, Integer> sources = new HashMap<>();
+        for (Map.Entry<String, Map<String, Integer>> row : reference.entrySet()) {
+            Integer weight = row.getValue().get(target);
+            if (weight != null) sources.put(row.getKey(), weight);
+        }
+        return sources;
+    }
+
+    private static void assertMatches(String at, Map<String, Map<String, Integer>> reference, Graph<String> graph) {
+        assertEquals(at + "vertices", reference.keySet(), new HashSet<>(graph.vertices()));
+        long edges = 0;
+        for (String v : reference.keySet()) {
+            assertEquals(at + "targets(" + v + ")", reference.get(v), new HashMap<>(graph.targets(v)));
+            assertEquals(at + "sources(" + v + ")", sources(reference, v), new HashMap<>(graph.sources(v)));
+            edges += reference.get(v).size();
+        }
+        long[] histogram = new long[MemoryStats.BUCKETS];
+        for (Map<String, Integer> targets : reference.values()) {
+            histogram[MemoryStats.bucket(targets.size())]++;
+        }
+        MemoryStats stats = graph.memoryStats();
+        assertEquals(at + "memoryStats() vertices", reference.size(), stats.getVertexCount());
+        assertEquals(at + "memoryStats() edges", edges, stats.getEdgeCount());
+        assertArrayEquals(at + "memoryStats() out-degrees", histogram, stats.getOutDegreeHistogram());
+        Set<WeightedEdge<String>> streamed = new HashSet<>();
+        graph.edgeStream().forEach(streamed::add);
+        assertEquals(at + "edges() count", edges, graph.edgeStream().count());
+        assertEquals(at + "edges() distinct", edges, streamed.size());
+        for (WeightedEdge<String> edge : streamed) {
+            assertEquals(at + "edge " + edge, reference.get(edge.getSource()).get(edge.getTarget()),
+                    Integer.valueOf(edge.getWeight()));
+        }
+    }
+
+    /**
+     * Grow graphs to vertices / SCALE_FACTOR and to vertices vertices with
+     * four out-edges each, reading a random row after every edge, then remove
+     * a tenth of the vertices; assert that the median cost of each kind of
+     * operation grew by at most maxGrowth, and stayed within budgetNanos()
+     * if one is set. An untimed run first warms up the JIT, and each kind is
+     * judged by its best of ROUNDS timed runs at each size.
+     *
+     * @param emptyInstance creates empty graphs under test
+     * @param vertices number of vertices in the larger graph
+     * @param maxGrowth largest allowed ratio of median costs, e.g. MAX_GROWTH
+     * @param seed random seed
+     */
+    static void scale(Supplier<Graph<String>> emptyInstance, int vertices, double maxGrowth, long seed) {
+        grow(emptyInstance.get(), vertices, seed);
+        long[] small = best(emptyInstance, vertices / SCALE_FACTOR, seed);
+        long[] large = best(emptyInstance, vertices, seed);
+        long budget = budgetNanos();
+        for (int kind = 0; kind < KINDS.length; kind++) {
+            String costs = KINDS[kind] + " took " + small[kind] + " ns per operation (median) with "
+                    + vertices / SCALE_FACTOR + " vertices and " + large[kind] + " ns with " + vertices;
+            assertTrue(costs, large[kind] <= maxGrowth * Math.max(1, small[kind]));
+            assertTrue(costs + ", over the budget of " + budget + " ns", budget == 0 || large[kind] <= budget);
+        }
+    }
+
+    // Lowest median nanoseconds per operation of each of KINDS over ROUNDS runs
+    private static long[] best(Supplier<Graph<String>> emptyInstance, int vertices, long seed) {
+        long[] best = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+        for (int round = 0; round < ROUNDS; round++) {
+            long[] medians = grow(emptyInstance.get(), vertices, seed);
+            for (int kind = 0; kind < best.length; kind++) {
+                best[kind] = Math.min(best[kind], medians[kind]);
+            }
+        }
+        return best;
+    }
+
+    // Median nanoseconds per operation of each of KINDS; a median ignores GC
+    // pauses, and growth is only timed in its second half so that every timed
+    // operation sees a graph of at least half the final size
+    private static long[] grow(Graph<String> graph, int vertices, long seed) {
+        Random random = new Random(seed);
+        int half = vertices / 2;
+        int removals = Math.max(1, vertices / 10);
+        int timed = vertices - half;
+        long[][] nanos = { new long[timed], new long[4 * timed], new long[4 * timed], new long[removals] };
+        long sink = 0;
+        for (int i = 0; i < vertices; i++) {
+            String v = "v" + i;
+            long start = System.nanoTime();
+            graph.add(v);
+            long addNanos = System.nanoTime() - start;
+            if (i >= half) nanos[0][i - half] = addNanos;
+            for (int k = 0; k < 4; k++) {
+                String target = "v" + random.nextInt(i + 1);
+                start = System.nanoTime();
+                graph.set(v, target, 1 + random.nextInt(100));
+                long setNanos = System.nanoTime() - start;
+
+                String read = "v" + random.nextInt(i + 1);
+                start = System.nanoTime();
+                sink += graph.targets(read).size() + graph.sources(read).size();
+                long readNanos = System.nanoTime() - start;
+                if (i >= half) {
+                    nanos[1][4 * (i - half) + k] = setNanos;
+                    nanos[2][4 * (i - half) + k] = readNanos;
+                }
+            }
+        }
+        for (int i = 0; i < removals; i++) {
+            String v = "v" + random.nextInt(vertices);
+            long start = System.nanoTime();
+            graph.remove(v);
+            nanos[3][i] = System.nanoTime() - start;
+        }
+        assertTrue("expected reads to see edges", sink > 0);
+        long[] medians = new long[nanos.length];
+        for (int kind = 0; kind < nanos.length; kind++) {
+            Arrays.sort(nanos[kind]);
+            medians[kind] = nanos[kind][nanos[kind].length / 2];
+        }
+        return medians;
+    }
+}
@@ -0,0 +1,21 @@
+package graph;
+
+/**
+ * Tests for HashedGraph.
+ *
+ * This class runs the GraphInstanceTest tests against HashedGraph, which is
+ * otherwise only reached through AdaptiveGraph.
+ *
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class HashedGraphTest extends GraphInstanceTest {
+
+    /*
+     * Provide a HashedGraph for tests in GraphInstanceTest.
+     */
+    @Override
+    public Graph<String> emptyInstance() {
+        return new HashedGraph<>();
+    }
+
+}
@@ -0,0 +1,237 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests for ObservableGraph.
+ *
+ * This class runs the GraphInstanceTest tests against ObservableGraph, as
+ * well as tests for that particular implementation.
+ *
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class ObservableGraphTest extends GraphInstanceTest {
+
+    /*
+     * Provide an ObservableGraph for tests in GraphInstanceTest.
+     */
+    @Override
+    public Graph<String> emptyInstance() {
+        return Graph.observable(Graph.empty());
+    }
+
+    /*
+     * Testing ObservableGraph...
+     */
+
+    // Testing strategy for ObservableGraph
+    //   mutations: add new/existing vertex, set adding/changing/removing/
+    //     no-op edge, set creating vertices or a self loop, set with a
+    //     negative weight, remove vertex with in, out and self-loop edges,
+    //     remove missing vertex; set never copies the vertex set
+    //   delivery: synchronous, on an executor, no listeners, after removal
+    //   batches: none, coalescing repeated edges, cancelling changes,
+    //     changes across a vertex removal, nesting
+    //   replaying delivered events reproduces the graph
+
+    // Records every delivered list
+    private static class Recorder implements GraphListener<String> {
+        final List<List<GraphEvent<String>>> lists = new ArrayList<>();
+
+        @Override
+        public synchronized void graphChanged(List<GraphEvent<String>> events) {
+            lists.add(events);
+        }
+
+        synchronized List<String> events() {
+            List<String> all = new ArrayList<>();
+            for (List<GraphEvent<String>> list : lists) {
+                for (GraphEvent<String> event : list) all.add(event.toString());
+            }
+            return all;
+        }
+    }
+
+    // Apply events to a plain edge map, as a derived index would
+    private static void replay(List<List<GraphEvent<String>>> lists, Map<String, Map<String, Integer>> edges) {
+        for (List<GraphEvent<String>> list : lists) {
+            for (GraphEvent<String> event : list) {
+                switch (event.getKind()) {
+                case VERTEX_ADDED:
+                    edges.put(event.getSource(), new HashMap<>());
+                    break;
+                case VERTEX_REMOVED:
+                    assertTrue("incident edges should be removed first", edges.remove(event.getSource()).isEmpty());
+                    break;
+                case EDGE_REMOVED:
+                    edges.get(event.getSource()).remove(event.getTarget());
+                    break;
+                default:
+                    assertEquals(event.getPreviousWeight(),
+                            (int) edges.get(event.getSource()).getOrDefault(event.getTarget(), 0));
+                    edges.get(event.getSource()).put(event.getTarget(), event.getWeight());
+                }
+            }
+        }
+    }
+
+    private static Map<String, Map<String, Integer>> snapshot(Graph<String> graph) {
+        Map<String, Map<String, Integer>> edges = new HashMap<>();
+        for (String v : graph.vertices()) edges.put(v, new HashMap<>(graph.targets(v)));
+        return edges;
+    }
+
+    @Test
+    public void testSynchronousEvents() {
+        ObservableGraph<String> graph = Graph.observable(Graph.empty());
+        Recorder recorder = new Recorder();
+        graph.addListener(recorder);
+        graph.add("a");
+        graph.add("a");
+        graph.set("a", "b", 2);
+        graph.set("a", "b", 3);
+        graph.set("a", "b", 3);
+        graph.set("a", "b", 0);
+        assertFalse(graph.remove("missing"));
+        assertEquals(Arrays.asList(
+                "VERTEX_ADDED a",
+                "VERTEX_ADDED b",
+                "EDGE_ADDED a -> b (0 -> 2)",
+                "EDGE_CHANGED a -> b (2 -> 3)",
+                "EDGE_REMOVED a -> b (3 -> 0)"), recorder.events());
+        assertEquals("expected one list per change", 5, recorder.lists.size());
+    }
+
+    @Test
+    public void testSetChecksVerticesWithoutCopying() {
+        int[] copies = new int[1];
+        ObservableGraph<String> graph = Graph.observable(new HashedGraph<String>() {
+            @Override
+            public Set<String> vertices() {
+                copies[0]++;
+                return super.vertices();
+            }
+        });
+        Recorder recorder = new Recorder();
+        graph.addListener(recorder);
+        graph.set("a", "a", 1);
+        graph.set("a", "b", 0);
+        try {
+            graph.set("c", "d", -1);
+            fail("expected negative weight rejected");
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+        assertEquals(Arrays.asList(
+                "VERTEX_ADDED a",
+                "EDGE_ADDED a -> a (0 -> 1)",
+                "VERTEX_ADDED b"), recorder.events());
+        assertEquals("expected no vertex set copies", 0, copies[0]);
+        assertFalse("expected nothing added by a rejected set", graph.vertices().contains("c"));
+    }
+
+    @Test
+    public void testRemoveReportsIncidentEdges() {
+        ObservableGraph<String> graph = Graph.observable(Graph.empty());
+        graph.set("a", "b", 1);
+        graph.set("b", "c", 2);
+        graph.set("b", "b", 3);
+        Recorder recorder = new Recorder();
+        graph.addListener(recorder);
+        assertTrue(graph.remove("b"));
+        List<String> events = recorder.events();
+        assertEquals(4, events.size());
+        assertTrue(events.containsAll(Arrays.asList(
+                "EDGE_REMOVED a -> b (1 -> 0)",
+                "EDGE_REMOVED b -> c (2 -> 0)",
+                "EDGE_REMOVED b -> b (3 -> 0)")));
+        assertEquals("VERTEX_REMOVED b", events.get(3));
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testBatchCoalesces() {
+        ObservableGraph<String> graph = Graph.observable(Graph.empty());
+        graph.set("a", "b", 1);
+        Recorder recorder = new Recorder();
+        graph.addListener(recorder);
+        try (ObservableGraph<String>.Batch batch = graph.batch()) {
+            graph.set("a", "b", 2);
+            graph.set("a", "b", 5);
+            graph.set("a", "c", 1);
+            graph.set("a", "c", 0);
+            graph.set("a", "c", 4);
+            graph.set("b", "a", 7);
+            graph.set("b", "a", 0);
+            try (ObservableGraph<String>.Batch inner = graph.batch()) {
+                graph.set("a", "b", 6);
+            }
+            assertTrue("expected nothing delivered before the batch closes", recorder.lists.isEmpty());
+        }
+        assertEquals(1, recorder.lists.size());
+        assertEquals(Arrays.asList(
+                "EDGE_CHANGED a -> b (1 -> 6)",
+                "VERTEX_ADDED c",
+                "EDGE_ADDED a -> c (0 -> 4)"), recorder.events());
+    }
+
+    @Test
+    @SuppressWarnings("try")
+    public void testBatchReplayAcrossRemoval() {
+        ObservableGraph<String> graph = Graph.observable(Graph.empty());
+        Map<String, Map<String, Integer>> derived = new HashMap<>();
+        Recorder recorder = new Recorder();
+        graph.addListener(recorder);
+        graph.set("a", "b", 3);
+        try (ObservableGraph<String>.Batch batch = graph.batch()) {
+            graph.set("a", "b", 4);
+            graph.remove("a");
+            graph.set("a", "b", 5);
+            graph.set("c", "a", 1);
+            graph.remove("c");
+        }
+        replay(recorder.lists, derived);
+        assertEquals(snapshot(graph), derived);
+    }
+
+    @Test
+    public void testAsynchronousDelivery() throws InterruptedException {
+        ObservableGraph<String> graph = Graph.observable(Graph.empty());
+        Recorder recorder = new Recorder();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        graph.addListener(recorder, executor);
+        for (int i = 0; i < 500; i++) {
+            graph.set("v" + (i % 20), "v" + (i % 7), i % 5);
+            if (i % 50 == 0) graph.remove("v3");
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Map<String, Map<String, Integer>> derived = new HashMap<>();
+        replay(recorder.lists, derived);
+        assertEquals("expected in-order delivery", snapshot(graph), derived);
+    }
+
+    @Test
+    public void testRemoveListener() {
+        ObservableGraph<String> graph = Graph.observable(Graph.empty());
+        Recorder recorder = new Recorder();
+        graph.addListener(recorder);
+        graph.add("a");
+        assertTrue(graph.removeListener(recorder));
+        assertFalse(graph.removeListener(recorder));
+        graph.add("b");
+        assertEquals(Arrays.asList("VERTEX_ADDED a"), recorder.events());
+    }
+}
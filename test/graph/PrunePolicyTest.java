@@ -0,0 +1,119 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+/**
+ * Tests for PrunePolicy.
+ */
+public class PrunePolicyTest {
+
+    // Testing strategy:
+    //   Policy: none, minWeight, maxTargetsPerVertex, maxEdges, maxBytes
+    //     (above the graph's bytes, between, below its vertex bytes), combined
+    //   Graph: edge list, hashed, vertex list
+    //   Result: no edges removed, some removed, all removed; vertices kept
+    //   Arguments: invalid limits
+
+    // a -> b (1), a -> c (2), a -> d (3), b -> c (5), c -> a (1)
+    private static Graph<String> sample(Graph<String> graph) {
+        graph.set("a", "b", 1);
+        graph.set("a", "c", 2);
+        graph.set("a", "d", 3);
+        graph.set("b", "c", 5);
+        graph.set("c", "a", 1);
+        return graph;
+    }
+
+    private static int edges(Graph<String> graph) {
+        return (int) graph.edgeStream().count();
+    }
+
+    @Test
+    public void testNoneKeepsEverything() {
+        Graph<String> graph = sample(new ConcreteEdgesGraph<>());
+        assertEquals(0, PrunePolicy.none().prune(graph));
+        assertEquals(5, edges(graph));
+    }
+
+    @Test
+    public void testMinWeight() {
+        Graph<String> graph = sample(new ConcreteVerticesGraph());
+        assertEquals(2, PrunePolicy.none().minWeight(2).prune(graph));
+        assertFalse(graph.targets("a").containsKey("b"));
+        assertTrue(graph.targets("c").isEmpty());
+        assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "d")), graph.vertices());
+    }
+
+    @Test
+    public void testMaxTargetsPerVertex() {
+        Graph<String> graph = sample(new HashedGraph<>());
+        assertEquals(2, PrunePolicy.none().maxTargetsPerVertex(1).prune(graph));
+        assertEquals(1, graph.targets("a").size());
+        assertEquals(Integer.valueOf(3), graph.targets("a").get("d"));
+        assertEquals(Integer.valueOf(5), graph.targets("b").get("c"));
+    }
+
+    @Test
+    public void testMaxEdges() {
+        Graph<String> graph = sample(new ConcreteEdgesGraph<>());
+        assertEquals(3, PrunePolicy.none().maxEdges(2).prune(graph));
+        assertEquals(Integer.valueOf(5), graph.targets("b").get("c"));
+        assertEquals(Integer.valueOf(3), graph.targets("a").get("d"));
+        assertEquals(2, edges(graph));
+    }
+
+    @Test
+    public void testMaxBytesKeepsHeaviestThatFit() {
+        Graph<String> graph = sample(new HashedGraph<>());
+        MemoryStats before = graph.memoryStats();
+        long budget = before.getTotalBytes() - before.getEdgeBytes() * 3 / 5;
+        assertEquals(3, PrunePolicy.none().maxBytes(budget).prune(graph));
+        assertEquals(Integer.valueOf(5), graph.targets("b").get("c"));
+        assertEquals(Integer.valueOf(3), graph.targets("a").get("d"));
+        assertTrue(graph.memoryStats().getTotalBytes() <= budget);
+    }
+
+    @Test
+    public void testMaxBytesAboveSizeKeepsEverything() {
+        Graph<String> graph = sample(new ConcreteVerticesGraph());
+        assertEquals(0, PrunePolicy.none().maxBytes(graph.memoryStats().getTotalBytes()).prune(graph));
+        assertEquals(5, edges(graph));
+    }
+
+    @Test
+    public void testMaxBytesBelowVerticesRemovesAll() {
+        Graph<String> graph = sample(new ConcreteEdgesGraph<>());
+        assertEquals(5, PrunePolicy.none().maxBytes(1).prune(graph));
+        assertEquals(0, edges(graph));
+        assertEquals(4, graph.vertices().size());
+    }
+
+    @Test
+    public void testCombinedRemovesAll() {
+        Graph<String> graph = sample(new AdaptiveGraph<>());
+        assertEquals(5, PrunePolicy.none().minWeight(2).maxTargetsPerVertex(2).maxEdges(0).prune(graph));
+        assertEquals(0, edges(graph));
+        assertEquals(4, graph.vertices().size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testMinWeightTooSmall() {
+        PrunePolicy.none().minWeight(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeMaxEdges() {
+        PrunePolicy.none().maxEdges(-1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeMaxBytes() {
+        PrunePolicy.none().maxBytes(-1);
+    }
+
+}
@@ -0,0 +1,198 @@
+package graph;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import org.junit.Test;
+
+/**
+ * Tests for ShardedGraph.
+ *
+ * This class runs the GraphInstanceTest tests against ShardedGraph, as
+ * well as tests for that particular implementation.
+ *
+ * Tests against the Graph spec should be in GraphInstanceTest.
+ */
+public class ShardedGraphTest extends GraphInstanceTest {
+
+    /*
+     * Provide a ShardedGraph for tests in GraphInstanceTest.
+     */
+    @Override
+    public Graph<String> emptyInstance() {
+        return new ShardedGraph<>(4, Graph::empty);
+    }
+
+    /*
+     * Testing ShardedGraph...
+     */
+
+    // Testing strategy for ShardedGraph
+    //   shard count: 1, > 1
+    //   edges: within one shard, across shards, self loops
+    //   removal: vertex with edges stored on other shards, edge to a vertex
+    //     owned elsewhere
+    //   memoryStats: each vertex and label counted once, by its owner
+    //   concurrent writers on many threads; removal of the target or the
+    //     source of an edge while it is being set
+
+    // Find a vertex name owned by a given shard
+    private static String ownedBy(ShardedGraph<String> graph, int shard, String prefix) {
+        for (int i = 0; ; i++) {
+            if (graph.shard(prefix + i) == shard) return prefix + i;
+        }
+    }
+
+    @Test
+    public void testSingleShard() {
+        ShardedGraph<String> graph = new ShardedGraph<>(1, ConcreteEdgesGraph::new);
+        graph.set("a", "b", 2);
+        graph.set("b", "a", 3);
+        assertEquals((Integer) 3, graph.sources("a").get("b"));
+        assertEquals((Integer) 2, graph.targets("a").get("b"));
+    }
+
+    @Test
+    public void testEdgesAcrossShards() {
+        ShardedGraph<String> graph = new ShardedGraph<>(3, Graph::empty);
+        String a = ownedBy(graph, 0, "a");
+        String b = ownedBy(graph, 1, "b");
+        String c = ownedBy(graph, 2, "c");
+        graph.set(a, b, 1);
+        graph.set(c, b, 2);
+        graph.set(b, b, 3);
+        Map<String, Integer> expected = new HashMap<>();
+        expected.put(a, 1);
+        expected.put(c, 2);
+        expected.put(b, 3);
+        assertEquals(expected, graph.sources(b));
+        assertEquals(3, graph.vertices().size());
+
+        assertTrue(graph.remove(b));
+        assertTrue(graph.targets(a).isEmpty());
+        assertTrue(graph.targets(c).isEmpty());
+        assertEquals(2, graph.vertices().size());
+        assertFalse(graph.remove(b));
+    }
+
+    @Test
+    public void testRemoveEdgeKeepsVertices() {
+        ShardedGraph<String> graph = new ShardedGraph<>(2, Graph::empty);
+        String a = ownedBy(graph, 0, "a");
+        String b = ownedBy(graph, 1, "b");
+        graph.set(a, b, 4);
+        assertEquals(4, graph.set(a, b, 0));
+        assertTrue(graph.vertices().contains(b));
+        assertTrue(graph.sources(b).isEmpty());
+    }
+
+    @Test
+    public void testMemoryStatsCountsOwnersOnly() {
+        ShardedGraph<String> graph = new ShardedGraph<>(3, Graph::empty);
+        Graph<String> single = new HashedGraph<>(0);
+        for (int i = 0; i < 300; i++) {
+            graph.set("v" + i, "v" + (i * 7 % 300), 1);
+            single.set("v" + i, "v" + (i * 7 % 300), 1);
+        }
+        MemoryStats stats = graph.memoryStats();
+        assertEquals(300, stats.getVertexCount());
+        assertEquals(300, stats.getEdgeCount());
+        assertEquals("expected each label once", single.memoryStats().getLabelBytes(), stats.getLabelBytes());
+        assertArrayEquals(single.memoryStats().getOutDegreeHistogram(), stats.getOutDegreeHistogram());
+        for (int i = 0; i < 300; i += 2) {
+            graph.remove("v" + i);
+            single.remove("v" + i);
+        }
+        assertEquals(single.memoryStats().getLabelBytes(), graph.memoryStats().getLabelBytes());
+    }
+
+    @Test
+    public void testConcurrentWriters() throws InterruptedException {
+        ShardedGraph<String> graph = new ShardedGraph<>(8, Graph::empty);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final int id = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    graph.set("t" + id + "-" + i, "shared" + (i % 10), 1);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) thread.join();
+        assertEquals(8 * 500 + 10, graph.vertices().size());
+        assertEquals(8 * 50, graph.sources("shared3").size());
+    }
+
+    // Shards that run beforeSet on the calling thread before storing each edge
+    private static ShardTransport<String> interceptSet(ShardTransport<String> shards, Consumer<String[]> beforeSet) {
+        return new ShardTransport<String>() {
+            public int shardCount() { return shards.shardCount(); }
+            public CompletableFuture<Boolean> add(int shard, String vertex) { return shards.add(shard, vertex); }
+            public CompletableFuture<Integer> set(int shard, String source, String target, int weight) {
+                beforeSet.accept(new String[] { source, target });
+                return shards.set(shard, source, target, weight);
+            }
+            public CompletableFuture<Boolean> remove(int shard, String vertex) { return shards.remove(shard, vertex); }
+            public CompletableFuture<Boolean> contains(int shard, String vertex) { return shards.contains(shard, vertex); }
+            public CompletableFuture<Set<String>> vertices(int shard) { return shards.vertices(shard); }
+            public CompletableFuture<Map<String, Integer>> sources(int shard, String target) { return shards.sources(shard, target); }
+            public CompletableFuture<Map<String, Integer>> targets(int shard, String source) { return shards.targets(shard, source); }
+            public CompletableFuture<MemoryStats> memoryStats(int shard) { return shards.memoryStats(shard); }
+            public void close() { shards.close(); }
+        };
+    }
+
+    // Run task on another thread and wait for it
+    private static void onOtherThread(Runnable task) {
+        Thread thread = new Thread(task);
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Removal of the target lands between set adding it and storing the edge
+    @Test
+    public void testRemoveTargetDuringSet() {
+        AtomicReference<ShardedGraph<String>> graph = new AtomicReference<>();
+        AtomicBoolean removed = new AtomicBoolean();
+        graph.set(new ShardedGraph<>(interceptSet(new LoopbackTransport<>(2, Graph::empty), edge -> {
+            if (removed.compareAndSet(false, true)) onOtherThread(() -> graph.get().remove(edge[1]));
+        })));
+        String a = ownedBy(graph.get(), 0, "a");
+        String b = ownedBy(graph.get(), 1, "b");
+        assertEquals(0, graph.get().set(a, b, 1));
+        assertFalse("expected b removed", graph.get().vertices().contains(b));
+        assertTrue("expected no edge to removed b", graph.get().targets(a).isEmpty());
+        assertTrue("expected no reference to b left", graph.get().sources(b).isEmpty());
+    }
+
+    // Removal of the source lands between set adding it and storing the edge
+    @Test
+    public void testRemoveSourceDuringSet() {
+        AtomicReference<ShardedGraph<String>> graph = new AtomicReference<>();
+        AtomicBoolean removed = new AtomicBoolean();
+        graph.set(new ShardedGraph<>(interceptSet(new LoopbackTransport<>(2, Graph::empty), edge -> {
+            if (removed.compareAndSet(false, true)) onOtherThread(() -> graph.get().remove(edge[0]));
+        })));
+        String a = ownedBy(graph.get(), 0, "a");
+        String b = ownedBy(graph.get(), 1, "b");
+        assertEquals(0, graph.get().set(a, b, 1));
+        assertTrue("expected a added again", graph.get().vertices().contains(a));
+        assertEquals((Integer) 1, graph.get().targets(a).get(b));
+        assertEquals(1, graph.get().memoryStats().getEdgeCount());
+    }
+}
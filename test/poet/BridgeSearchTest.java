@@ -0,0 +1,66 @@
+package poet;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Test;
+
+import graph.Graph;
+
+/**
+ * Tests for BridgeSearch.
+ */
+public class BridgeSearchTest {
+
+    // Testing strategy:
+    //   bridge length: 1 word, 2 words
+    //   weights: small, saturated at Integer.MAX_VALUE on the path or the
+    //            closing edge
+    //   result: bridge found, none
+
+    private static final int MAX = Integer.MAX_VALUE;
+
+    @Test
+    public void testNoBridge() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "b", 1);
+        assertEquals(Collections.emptyList(), new BridgeSearch(graph, 2, 64, 1).find("a", "b"));
+    }
+
+    @Test
+    public void testHeaviestBridge() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "x", 1);
+        graph.set("x", "b", 1);
+        graph.set("a", "y", 2);
+        graph.set("y", "z", 2);
+        graph.set("z", "b", 2);
+        assertEquals(Arrays.asList("y", "z"), new BridgeSearch(graph, 2, 64, 2).find("a", "b"));
+    }
+
+    // Saturated path weight plus a saturated closing edge must not overflow
+    // and lose to a lighter bridge
+    @Test
+    public void testSaturatedClosingEdge() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "x", MAX);
+        graph.set("x", "b", MAX);
+        graph.set("a", "z", 1);
+        graph.set("z", "b", 1);
+        assertEquals(Arrays.asList("x"), new BridgeSearch(graph, 2, 64, MAX).find("a", "b"));
+    }
+
+    @Test
+    public void testSaturatedTwoWordBridge() {
+        Graph<String> graph = Graph.empty();
+        graph.set("a", "x", MAX);
+        graph.set("x", "y", MAX);
+        graph.set("y", "b", MAX);
+        graph.set("a", "z", 1);
+        graph.set("z", "b", 1);
+        assertEquals(Arrays.asList("x", "y"), new BridgeSearch(graph, 2, 64, MAX).find("a", "b"));
+    }
+
+}
@@ -1,12 +1,16 @@
 package poet;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.File;
 import java.io.IOException;
 
 import org.junit.Test;
 
+import graph.MemoryStats;
+import graph.PrunePolicy;
+
 /**
  * Tests for GraphPoet.
  */
@@ -19,7 +23,7 @@ public class GraphPoetTest {
 
     @Test
     public void testSimpleCorpus() throws IOException {
-        GraphPoet poet = new GraphPoet(new File("C:/Users/saraa/Downloads/ps2/ps2/test/poet/simple.txt"));
+        GraphPoet poet = new GraphPoet(new File("test/poet/simple.txt"));
         String input = "Seek to explore new synergies.";
         String expected = "Seek to explore strange new synergies.";
         assertEquals(expected, poet.poem(input));
@@ -27,7 +31,7 @@ public class GraphPoetTest {
 
     @Test
     public void testCaseInsensitiveCorpus() throws IOException {
-        GraphPoet poet = new GraphPoet(new File("C:/Users/saraa/Downloads/ps2/ps2/test/poet/case-insensitive.txt"));
+        GraphPoet poet = new GraphPoet(new File("test/poet/case-insensitive.txt"));
         String input = "Hello world.";
         String expected = "Hello world.";
         assertEquals(expected, poet.poem(input));
@@ -35,7 +39,7 @@ public class GraphPoetTest {
 
     @Test
     public void testEmptyCorpus() throws IOException {
-        GraphPoet poet = new GraphPoet(new File("C:/Users/saraa/Downloads/ps2/ps2/test/poet/empty.txt"));
+        GraphPoet poet = new GraphPoet(new File("test/poet/empty.txt"));
         String input = "Seek to explore.";
         String expected = "Seek to explore.";
         assertEquals(expected, poet.poem(input));
@@ -43,7 +47,7 @@ public class GraphPoetTest {
 
     @Test
     public void testNoBridge() throws IOException {
-        GraphPoet poet = new GraphPoet(new File("C:/Users/saraa/Downloads/ps2/ps2/test/poet/no-bridge.txt"));
+        GraphPoet poet = new GraphPoet(new File("test/poet/no-bridge.txt"));
         String input = "Hello brave new world.";
         String expected = "Hello brave new world.";
         assertEquals(expected, poet.poem(input));
@@ -51,7 +55,7 @@ public class GraphPoetTest {
 
     @Test
     public void testRepeatedWordsCorpus() throws IOException {
-        GraphPoet poet = new GraphPoet(new File("C:/Users/saraa/Downloads/ps2/ps2/test/poet/repeated.txt"));
+        GraphPoet poet = new GraphPoet(new File("test/poet/repeated.txt"));
         String input = "The quick brown fox.";
         String expected = "The very quick brown fox.";
         assertEquals(expected, poet.poem(input));
@@ -59,7 +63,7 @@ public class GraphPoetTest {
 
     @Test
     public void testPunctuationCorpus() throws IOException {
-        GraphPoet poet = new GraphPoet(new File("C:/Users/saraa/Downloads/ps2/ps2/test/poet/punctuation.txt"));
+        GraphPoet poet = new GraphPoet(new File("test/poet/punctuation.txt"));
         String input = "Goodbye, cruel world.";
         String expected = "Goodbye, my cruel world.";
         assertEquals(expected, poet.poem(input));
@@ -67,7 +71,7 @@ public class GraphPoetTest {
     
     @Test
     public void testEmptyInput() throws IOException {
-        GraphPoet poet = new GraphPoet(new File("C:/Users/saraa/Downloads/ps2/ps2/test/poet/simple.txt"));
+        GraphPoet poet = new GraphPoet(new File("test/poet/simple.txt"));
         String input = ""; // Empty input string
         String expected = ""; // Expected result for empty input
         assertEquals(expected, poet.poem(input));
@@ -75,7 +79,7 @@ public class GraphPoetTest {
 
     @Test
     public void testSpecialCharacters() throws IOException {
-        GraphPoet poet = new GraphPoet(new File("C:/Users/saraa/Downloads/ps2/ps2/test/poet/special-characters.txt"));
+        GraphPoet poet = new GraphPoet(new File("test/poet/special-characters.txt"));
         String input = "Hello @world!";
         String expected = "Hello @world!";
         assertEquals(expected, poet.poem(input));
@@ -83,10 +87,130 @@ public class GraphPoetTest {
 
     @Test
     public void testBridgeWordsInMiddle() throws IOException {
-        GraphPoet poet = new GraphPoet(new File("C:/Users/saraa/Downloads/ps2/ps2/test/poet/bridge-middle.txt"));
+        GraphPoet poet = new GraphPoet(new File("test/poet/bridge-middle.txt"));
         String input = "A quick fox jumps.";
         String expected = "A quick brown fox jumps."; // Ensures "brown" is added as a bridge word
         assertEquals(expected, poet.poem(input));
     }
 
+    @Test
+    public void testMultiWordBridge() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/k-hop.txt"), 3);
+        String input = "Alpha omega";
+        String expected = "Alpha beta gamma delta omega"; // Three bridge words fit within k = 3
+        assertEquals(expected, poet.poem(input));
+    }
+
+    @Test
+    public void testMultiWordBridgeTooLong() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/k-hop.txt"), 2);
+        String input = "Alpha omega";
+        String expected = "Alpha omega"; // The only bridge needs three words
+        assertEquals(expected, poet.poem(input));
+    }
+
+    @Test
+    public void testMultiWordBridgeNodeBudget() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/k-hop.txt"), 3, 2);
+        String input = "Alpha omega";
+        String expected = "Alpha omega"; // Budget is exhausted before the bridge is found
+        assertEquals(expected, poet.poem(input));
+    }
+
+    @Test
+    public void testMultiWordBridgeMatchesSingleWord() throws IOException {
+        GraphPoet poet = new GraphPoet(new File("test/poet/bridge-middle.txt"), 3);
+        String input = "A quick fox jumps.";
+        String expected = "A quick brown fox jumps.";
+        assertEquals(expected, poet.poem(input));
+    }
+
+    @Test
+    public void testBigramIgnoresEarlierWords() throws IOException {
+        GraphPoet poet = GraphPoet.builder(new File("test/poet/ngram.txt")).build();
+        String input = "The cat sat down";
+        String expected = "The cat sat loudly down"; // sat -> loudly -> down is the heaviest pair path
+        assertEquals(expected, poet.poem(input));
+    }
+
+    @Test
+    public void testTrigramUsesContext() throws IOException {
+        GraphPoet poet = GraphPoet.builder(new File("test/poet/ngram.txt")).order(3).build();
+        String input = "The cat sat down";
+        String expected = "The cat sat quietly down"; // only "cat sat quietly down" follows "cat sat"
+        assertEquals(expected, poet.poem(input));
+    }
+
+    @Test
+    public void testTrigramFallsBackToPairs() throws IOException {
+        GraphPoet poet = GraphPoet.builder(new File("test/poet/ngram.txt")).order(3).build();
+        String input = "Sat down";
+        String expected = "Sat loudly down"; // too little context for a trigram
+        assertEquals(expected, poet.poem(input));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testOrderOutOfRange() {
+        GraphPoet.builder(new File("test/poet/ngram.txt")).order(5);
+    }
+
+    @Test
+    public void testMinPairCountFiltersRarePairs() throws IOException {
+        File corpus = new File("test/poet/ngram.txt");
+        assertEquals("Cat sat loudly down", GraphPoet.builder(corpus).minPairCount(2).build().poem("Cat sat loudly down"));
+        assertEquals("Sat loudly down", GraphPoet.builder(corpus).minPairCount(2).build().poem("Sat down"));
+        assertEquals("Sat down", GraphPoet.builder(corpus).minPairCount(3).build().poem("Sat down")); // every pair seen at most twice
+    }
+
+    @Test
+    public void testMinPairCountFiltersRareNGrams() throws IOException {
+        File corpus = new File("test/poet/ngram.txt");
+        GraphPoet poet = GraphPoet.builder(corpus).order(3).minPairCount(2).build();
+        assertEquals("The cat sat loudly down", poet.poem("The cat sat down")); // "cat sat quietly" seen once
+    }
+
+    @Test
+    public void testMinPairCountInSmallSketch() throws IOException {
+        File corpus = new File("test/poet/ngram.txt");
+        GraphPoet poet = GraphPoet.builder(corpus).minPairCount(2).sketchBytes(16384).build();
+        assertEquals("Sat loudly down", poet.poem("Sat down"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSketchBytesTooSmall() {
+        GraphPoet.builder(new File("test/poet/ngram.txt")).sketchBytes(1024);
+    }
+
+    @Test
+    public void testPruneDropsBridges() throws IOException {
+        File corpus = new File("test/poet/ngram.txt");
+        assertEquals("Sat loudly down",
+                GraphPoet.builder(corpus).prune(PrunePolicy.none().minWeight(2)).build().poem("Sat down"));
+        assertEquals("Sat down",
+                GraphPoet.builder(corpus).prune(PrunePolicy.none().minWeight(3)).build().poem("Sat down"));
+    }
+
+    @Test
+    public void testPruneCoversNGrams() throws IOException {
+        File corpus = new File("test/poet/ngram.txt");
+        GraphPoet poet = GraphPoet.builder(corpus).order(3).prune(PrunePolicy.none().minWeight(2)).build();
+        assertEquals("The cat sat loudly down", poet.poem("The cat sat down"));
+        MemoryStats full = GraphPoet.builder(corpus).order(3).build().memoryStats();
+        assertTrue(poet.memoryStats().getEdgeCount() < full.getEdgeCount());
+    }
+
+    @Test
+    public void testMemoryStats() throws IOException {
+        File corpus = new File("test/poet/ngram.txt");
+        // cat sat quietly down . dog loudly: 7 words, 8 distinct pairs
+        MemoryStats pairs = GraphPoet.builder(corpus).build().memoryStats();
+        assertEquals(7, pairs.getVertexCount());
+        assertEquals(8, pairs.getEdgeCount());
+        MemoryStats trigrams = GraphPoet.builder(corpus).order(3).build().memoryStats();
+        assertTrue(trigrams.getTotalBytes() > pairs.getTotalBytes());
+        MemoryStats pruned = GraphPoet.builder(corpus).prune(PrunePolicy.none().minWeight(2)).build().memoryStats();
+        assertEquals(5, pruned.getEdgeCount());
+        assertTrue(pruned.getEdgeBytes() < pairs.getEdgeBytes());
+    }
+
 }
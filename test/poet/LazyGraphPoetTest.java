@@ -0,0 +1,81 @@
+package poet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+/**
+ * Tests for LazyGraphPoet.
+ */
+public class LazyGraphPoetTest {
+
+    // Testing strategy:
+    //   Loading: in background, on first use, already loaded, failed
+    //   Poems: before ready (fallback), after ready, with timeout
+    //   Readiness: isReady, isDone, awaitReady
+
+    private static final String INPUT = "Seek to explore new synergies.";
+    private static final String POEM = "Seek to explore strange new synergies.";
+
+    private static GraphPoet.Builder simple() {
+        return GraphPoet.builder(new File("test/poet/simple.txt"));
+    }
+
+    @Test
+    public void testInBackgroundFallsBackUntilReady() {
+        List<Runnable> tasks = new ArrayList<>();
+        LazyGraphPoet poet = LazyGraphPoet.inBackground(simple(), tasks::add);
+        assertEquals(1, tasks.size());
+        assertFalse(poet.isReady());
+        assertFalse(poet.isDone());
+        assertEquals(INPUT, poet.poem(INPUT));
+
+        tasks.get(0).run();
+        assertTrue(poet.isReady());
+        assertEquals(POEM, poet.poem(INPUT));
+    }
+
+    @Test
+    public void testInBackgroundWithWarmUp() throws IOException, InterruptedException {
+        LazyGraphPoet poet = LazyGraphPoet.inBackground(simple(), INPUT);
+        assertTrue(poet.awaitReady(10, TimeUnit.SECONDS));
+        assertEquals(POEM, poet.poem(INPUT));
+    }
+
+    @Test
+    public void testOnFirstUseWaitsWithTimeout() {
+        LazyGraphPoet poet = LazyGraphPoet.onFirstUse(simple());
+        assertFalse(poet.isDone());
+        assertEquals(POEM, poet.poem(INPUT, 10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testOfIsReady() throws IOException {
+        LazyGraphPoet poet = LazyGraphPoet.of(new GraphPoet(new File("test/poet/simple.txt")));
+        assertTrue(poet.isReady());
+        assertEquals(POEM, poet.poem(INPUT));
+    }
+
+    @Test(expected = IOException.class)
+    public void testAwaitReadyMissingCorpus() throws IOException, InterruptedException {
+        LazyGraphPoet poet = LazyGraphPoet.inBackground(GraphPoet.builder(new File("test/poet/missing.txt")), Runnable::run);
+        assertTrue(poet.isDone());
+        assertFalse(poet.isReady());
+        poet.awaitReady(0, TimeUnit.SECONDS);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testPoemMissingCorpus() {
+        LazyGraphPoet poet = LazyGraphPoet.inBackground(GraphPoet.builder(new File("test/poet/missing.txt")), Runnable::run);
+        poet.poem(INPUT);
+    }
+
+}
@@ -0,0 +1,101 @@
+package poet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Tests for LoadGenerator.
+ */
+public class LoadGeneratorTest {
+
+    // Testing strategy:
+    //   closed loop, open loop
+    //   server answers 200, server is slower than the schedule
+    //   invalid arguments: concurrency, duration, inputs, rate
+
+    private static final List<String> INPUTS = Arrays.asList("Seek to explore new synergies.");
+
+    // A server answering every request with 200 after delayMillis, one at a time
+    private static HttpServer slowServer(long delayMillis) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/poem", exchange -> {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getRequestBody().close();
+            exchange.sendResponseHeaders(200, 2);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(new byte[] { 'o', 'k' });
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    @Test
+    public void testClosedLoop() throws IOException, InterruptedException {
+        PoemServer server = new PoemServer(new GraphPoet(new File("test/poet/simple.txt")), 0);
+        server.start();
+        try {
+            URL target = new URL("http://localhost:" + server.getPort() + "/poem");
+            LoadGenerator.Report report = new LoadGenerator(target, 2, 200, TimeUnit.MILLISECONDS, INPUTS).run();
+            assertTrue(report.toString(), report.successes() > 0);
+            assertEquals(report.toString(), 0, report.errors());
+            assertTrue(report.toString(), report.latencyNanos(0.5) > 0);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testOpenLoopCountsQueueing() throws IOException, InterruptedException {
+        HttpServer server = slowServer(50);
+        try {
+            URL target = new URL("http://localhost:" + server.getAddress().getPort() + "/poem");
+            // 20 requests are scheduled 10 ms apart, but a single worker needs
+            // 50 ms each, so later requests wait for earlier ones
+            LoadGenerator.Report report = LoadGenerator.atRate(target, 100, 1, 200, TimeUnit.MILLISECONDS, INPUTS).run();
+            assertEquals(report.toString(), 20, report.successes() + report.rejected() + report.errors());
+            assertTrue(report.toString(), report.latencyNanos(1) >= TimeUnit.MILLISECONDS.toNanos(500));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testConcurrencyTooLow() throws IOException {
+        new LoadGenerator(new URL("http://localhost/poem"), 0, 1, TimeUnit.SECONDS, INPUTS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testDurationTooShort() throws IOException {
+        new LoadGenerator(new URL("http://localhost/poem"), 1, 0, TimeUnit.SECONDS, INPUTS);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNoInputs() throws IOException {
+        new LoadGenerator(new URL("http://localhost/poem"), 1, 1, TimeUnit.SECONDS, Collections.<String>emptyList());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRateNotPositive() throws IOException {
+        LoadGenerator.atRate(new URL("http://localhost/poem"), 0, 1, 1, TimeUnit.SECONDS, INPUTS);
+    }
+
+}
@@ -0,0 +1,216 @@
+package poet;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+import org.junit.Test;
+
+/**
+ * Tests for PoemServer.
+ */
+public class PoemServerTest {
+
+    // Testing strategy:
+    //   POST /poem: body within limit, body over limit, all permits held,
+    //     poet fails (500, logged in full once per exception type)
+    //   GET /poem: wrong method
+    //   GET /health: poet loaded, poet loading
+    //   GET /stats
+
+    private static String[] request(PoemServer server, String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection)
+                new URL("http://localhost:" + server.getPort() + path).openConnection();
+        connection.setRequestMethod(method);
+        if (body != null) {
+            connection.setDoOutput(true);
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status < 400 ? connection.getInputStream() : connection.getErrorStream();
+        ByteArrayOutputStream response = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = in.read(buffer)) != -1) response.write(buffer, 0, read);
+        in.close();
+        return new String[] { String.valueOf(status), response.toString("UTF-8") };
+    }
+
+    @Test
+    public void testPoem() throws IOException {
+        PoemServer server = new PoemServer(new GraphPoet(new File("test/poet/simple.txt")), 0);
+        server.start();
+        try {
+            String[] response = request(server, "POST", "/poem", "Seek to explore new synergies.");
+            assertEquals("200", response[0]);
+            assertEquals("Seek to explore strange new synergies.", response[1]);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testInputTooLarge() throws IOException {
+        PoemServer server = new PoemServer(new GraphPoet(new File("test/poet/simple.txt")), 0, 4, 8);
+        server.start();
+        try {
+            String[] response = request(server, "POST", "/poem", "Seek to explore new synergies.");
+            assertEquals("413", response[0]);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testBusyWhenSaturated() throws IOException, InterruptedException {
+        PoemServer server = new PoemServer(new GraphPoet(new File("test/poet/simple.txt")), 0, 1, 1024);
+        server.start();
+        try (Socket slow = new Socket("localhost", server.getPort())) {
+            // Hold the only permit by sending headers and half of the body
+            String body = "Test the system.";
+            OutputStream out = slow.getOutputStream();
+            out.write(("POST /poem HTTP/1.1\r\nHost: localhost\r\nContent-Length: " + body.length()
+                    + "\r\n\r\n" + body.substring(0, 4)).getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+
+            // The slow request may not have reached the handler yet; retry until it has
+            long deadline = System.nanoTime() + 5_000_000_000L;
+            HttpURLConnection busy;
+            do {
+                Thread.sleep(10);
+                busy = (HttpURLConnection) new URL("http://localhost:" + server.getPort() + "/poem").openConnection();
+                busy.setRequestMethod("POST");
+                busy.setDoOutput(true);
+                try (OutputStream busyOut = busy.getOutputStream()) {
+                    busyOut.write(body.getBytes(StandardCharsets.UTF_8));
+                }
+            } while (busy.getResponseCode() == 200 && System.nanoTime() < deadline);
+            assertEquals(503, busy.getResponseCode());
+            assertEquals("1", busy.getHeaderField("Retry-After"));
+            busy.getErrorStream().close();
+
+            out.write(body.substring(4).getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            byte[] status = new byte["HTTP/1.1 200".length()];
+            InputStream in = slow.getInputStream();
+            for (int read = 0, n; read < status.length && (n = in.read(status, read, status.length - read)) != -1; ) {
+                read += n;
+            }
+            assertEquals("HTTP/1.1 200", new String(status, StandardCharsets.US_ASCII));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testFailureLogged() throws IOException {
+        LazyGraphPoet broken = LazyGraphPoet.inBackground(
+                GraphPoet.builder(new File("test/poet/missing.txt")), Runnable::run);
+        List<LogRecord> records = new ArrayList<>();
+        Handler handler = new Handler() {
+            @Override
+            public synchronized void publish(LogRecord record) {
+                if (record.getLevel().intValue() >= Level.SEVERE.intValue()) records.add(record);
+            }
+
+            @Override
+            public void flush() {
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+        Logger logger = Logger.getLogger(PoemServer.class.getName());
+        logger.addHandler(handler);
+        logger.setUseParentHandlers(false);
+        PoemServer server = new PoemServer(broken, 0);
+        server.start();
+        try {
+            assertEquals("500", request(server, "POST", "/poem", "Test the system.")[0]);
+            assertEquals("500", request(server, "POST", "/poem", "Test the system.")[0]);
+        } finally {
+            server.stop(0);
+            logger.removeHandler(handler);
+            logger.setUseParentHandlers(true);
+        }
+        synchronized (handler) {
+            assertEquals("expected the first failure logged in full, once", 1, records.size());
+            assertTrue(records.get(0).getThrown() instanceof IllegalStateException);
+        }
+    }
+
+    @Test
+    public void testWrongMethod() throws IOException {
+        PoemServer server = new PoemServer(new GraphPoet(new File("test/poet/simple.txt")), 0);
+        server.start();
+        try {
+            assertEquals("405", request(server, "GET", "/poem", null)[0]);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testHealth() throws IOException {
+        PoemServer server = new PoemServer(new GraphPoet(new File("test/poet/simple.txt")), 0);
+        server.start();
+        try {
+            String[] response = request(server, "GET", "/health", null);
+            assertEquals("200", response[0]);
+            assertEquals("ok", response[1]);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testHealthWhileLoading() throws IOException {
+        List<Runnable> tasks = new ArrayList<>();
+        LazyGraphPoet poet = LazyGraphPoet.inBackground(GraphPoet.builder(new File("test/poet/simple.txt")), tasks::add);
+        PoemServer server = new PoemServer(poet, 0);
+        server.start();
+        try {
+            assertEquals("503", request(server, "GET", "/health", null)[0]);
+            String[] response = request(server, "POST", "/poem", "Seek to explore new synergies.");
+            assertEquals("200", response[0]);
+            assertEquals("Seek to explore new synergies.", response[1]);
+
+            tasks.get(0).run();
+            assertEquals("200", request(server, "GET", "/health", null)[0]);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testStats() throws IOException {
+        PoemServer server = new PoemServer(new GraphPoet(new File("test/poet/simple.txt")), 0);
+        server.start();
+        try {
+            String[] response = request(server, "GET", "/stats", null);
+            assertEquals("200", response[0]);
+            assertTrue(response[1], response[1].contains(" vertices, "));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+}